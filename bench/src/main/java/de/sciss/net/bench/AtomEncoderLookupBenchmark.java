@@ -0,0 +1,150 @@
+/*
+ *  AtomEncoderLookupBenchmark.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sciss.net.OSCMessage;
+import de.sciss.net.OSCPacketCodec;
+
+/**
+ *	JMH benchmarks for the class-to-atom lookup of <code>OSCPacketCodec</code>
+ *	when encoding and sizing messages with many arguments. The codec
+ *	optionally has a number of custom encoders registered through
+ *	<code>putEncoder</code>, and the message arguments are a mix of
+ *	built-in classes (<code>Integer</code>, <code>Float</code>, <code>Long</code>,
+ *	<code>Double</code>) and the custom classes.
+ *	<pre>
+ *	sbt "bench/jmh:run AtomEncoderLookupBenchmark"
+ *	</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomEncoderLookupBenchmark {
+	private static final Object[] customArgs = {
+		(short) 1, (byte) 2, 'c', Boolean.TRUE, new Date(0L), BigInteger.ONE,
+		BigDecimal.ONE, new StringBuilder("x"), new UUID(1L, 2L), new AtomicInteger(3),
+		new AtomicLong(4L), Locale.GERMAN, new File("f"), Thread.State.NEW,
+		TimeUnit.SECONDS, new Object()
+	};
+
+	/**
+	 *	Number of arguments per message
+	 */
+	@Param({ "32", "256" })
+	public int numArgs;
+
+	/**
+	 *	Number of custom encoders registered with the codec
+	 */
+	@Param({ "0", "16" })
+	public int numCustom;
+
+	private OSCPacketCodec	c;
+	private OSCMessage		msg;
+	private ByteBuffer		encodeBuf;
+
+	@Setup
+	public void setup() {
+		c = new OSCPacketCodec(OSCPacketCodec.MODE_FAT_V1);
+		final OSCPacketCodec.Atom a = new HashCodeAtom();
+		for (int i = 0; i < numCustom; i++) {
+			c.putEncoder(customArgs[i].getClass(), a);
+		}
+
+		final Object[] args = new Object[numArgs];
+		for (int i = 0; i < numArgs; i++) {
+			switch (i % 5) {
+				case 0:
+					args[i] = i;
+					break;
+				case 1:
+					args[i] = (float) i;
+					break;
+				case 2:
+					args[i] = (long) i;
+					break;
+				case 3:
+					args[i] = (double) i;
+					break;
+				default:
+					args[i] = numCustom == 0 ? (Object) i : customArgs[(i / 5) % numCustom];
+					break;
+			}
+		}
+		msg			= new OSCMessage("/n_set", args);
+		encodeBuf	= ByteBuffer.allocateDirect(65536);
+	}
+
+	@Benchmark
+	public ByteBuffer encodeMessage()
+			throws IOException {
+		encodeBuf.clear();
+		c.encode(msg, encodeBuf);
+		return encodeBuf;
+	}
+
+	@Benchmark
+	public int getSizeMessage()
+			throws IOException {
+		return c.getSize(msg);
+	}
+
+	private static final class HashCodeAtom
+			extends OSCPacketCodec.Atom {
+
+		public Object decodeAtom(byte typeTag, ByteBuffer b) {
+			return b.getInt();
+		}
+
+		public void encodeAtom(Object o, ByteBuffer tb, ByteBuffer db) {
+			tb.put((byte) 0x69);	// 'i'
+			db.putInt(o.hashCode());
+		}
+
+		public byte getTypeTag(Object o) {
+			return 0x69;
+		}
+
+		public int getAtomSize(Object o) {
+			return 4;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ *  BlobBenchmark.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sciss.net.OSCMessage;
+import de.sciss.net.OSCPacket;
+import de.sciss.net.OSCPacketCodec;
+
+/**
+ *	JMH benchmarks for messages carrying a single large blob, such as
+ *	an audio frame. <code>decodeArray</code> and <code>encodeArray</code>
+ *	use <code>byte[]</code> blobs, <code>decodeBuffer</code> decodes
+ *	with <code>MODE_READ_BLOB_AS_BUFFER</code>, and <code>encodeBuffer</code>
+ *	encodes a direct <code>ByteBuffer</code> blob. <code>relayNested</code>
+ *	decodes a message tunnelling a packet with such a blob, using
+ *	<code>MODE_READ_PACKET_FROM_BLOB</code>, and encodes the nested packet.
+ *	<pre>
+ *	sbt "bench/jmh:run -prof gc BlobBenchmark"
+ *	</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlobBenchmark {
+	/**
+	 *	Blob size in bytes
+	 */
+	@Param({ "4096", "61440" })
+	public int blobSize;
+
+	private OSCPacketCodec	c;
+	private OSCPacketCodec	cBuffer;
+	private OSCMessage		arrayMsg;
+	private OSCMessage		bufferMsg;
+	private ByteBuffer		encodeBuf;
+	private ByteBuffer		msgBuf;
+	private OSCPacketCodec	cRelay;
+	private ByteBuffer		tunnelBuf;
+
+	@Setup
+	public void setup()
+			throws IOException {
+		c		= new OSCPacketCodec();
+		cBuffer	= new OSCPacketCodec(OSCPacketCodec.MODE_STRICT_V1 | OSCPacketCodec.MODE_READ_BLOB_AS_BUFFER);
+
+		final byte[] data = new byte[blobSize];
+		new Random(0x1234578L).nextBytes(data);
+		final ByteBuffer direct = ByteBuffer.allocateDirect(blobSize);
+		direct.put(data).flip();
+		arrayMsg	= new OSCMessage("/frame", new Object[] { 1001, data });
+		bufferMsg	= new OSCMessage("/frame", new Object[] { 1001, direct });
+
+		encodeBuf	= ByteBuffer.allocateDirect(blobSize + 64);
+		msgBuf		= ByteBuffer.allocateDirect(blobSize + 64);
+		c.encode(arrayMsg, msgBuf);
+		msgBuf.flip();
+
+		cRelay		= new OSCPacketCodec(OSCPacketCodec.MODE_FAT_V1 | OSCPacketCodec.MODE_READ_PACKET_FROM_BLOB);
+		tunnelBuf	= ByteBuffer.allocateDirect(blobSize + 128);
+		cRelay.encode(new OSCMessage("/tunnel", new Object[] { arrayMsg }), tunnelBuf);
+		tunnelBuf.flip();
+	}
+
+	@Benchmark
+	public ByteBuffer encodeArray()
+			throws IOException {
+		encodeBuf.clear();
+		c.encode(arrayMsg, encodeBuf);
+		return encodeBuf;
+	}
+
+	@Benchmark
+	public ByteBuffer encodeBuffer()
+			throws IOException {
+		encodeBuf.clear();
+		c.encode(bufferMsg, encodeBuf);
+		return encodeBuf;
+	}
+
+	@Benchmark
+	public OSCPacket decodeArray()
+			throws IOException {
+		msgBuf.clear();
+		return c.decode(msgBuf);
+	}
+
+	@Benchmark
+	public OSCPacket decodeBuffer()
+			throws IOException {
+		msgBuf.clear();
+		return cBuffer.decode(msgBuf);
+	}
+
+	@Benchmark
+	public ByteBuffer relayNested()
+			throws IOException {
+		tunnelBuf.clear();
+		final OSCMessage tunnel = (OSCMessage) cRelay.decode(tunnelBuf);
+		encodeBuf.clear();
+		cRelay.encode((OSCPacket) tunnel.getArg(0), encodeBuf);
+		return encodeBuf;
+	}
+}
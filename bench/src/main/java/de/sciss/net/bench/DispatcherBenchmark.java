@@ -0,0 +1,98 @@
+/*
+ *  DispatcherBenchmark.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net.bench;
+
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.sciss.net.OSCDispatcher;
+import de.sciss.net.OSCListener;
+import de.sciss.net.OSCMessage;
+
+/**
+ *	JMH benchmarks for <code>OSCDispatcher</code> with a growing number
+ *	of registered addresses of the form <code>/synth/&lt;i&gt;/freq</code>.
+ *	<code>dispatchLiteral</code> dispatches a plain address,
+ *	<code>dispatchPattern</code> an address with a character class in the
+ *	last segment, and <code>listenerChain</code> compares the plain address
+ *	against all registered addresses, as a broadcast listener with an
+ *	<code>equals</code> chain would.
+ *	<pre>
+ *	sbt "bench/jmh:run DispatcherBenchmark"
+ *	</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatcherBenchmark {
+	/**
+	 *	Number of registered addresses
+	 */
+	@Param({ "10", "10000" })
+	public int numAddresses;
+
+	private OSCDispatcher	disp;
+	private String[]		addresses;
+	private OSCMessage		literalMsg;
+	private OSCMessage		patternMsg;
+
+	@Setup
+	public void setup() {
+		disp		= new OSCDispatcher();
+		addresses	= new String[numAddresses];
+		final OSCListener l = new OSCListener() {
+			public void messageReceived(OSCMessage msg, SocketAddress sender, long time) { /* empty */ }
+		};
+		for (int i = 0; i < numAddresses; i++) {
+			addresses[i] = "/synth/" + i + "/freq";
+			disp.addHandler(addresses[i], l);
+		}
+		literalMsg	= new OSCMessage("/synth/" + (numAddresses - 1) + "/freq");
+		patternMsg	= new OSCMessage("/synth/" + (numAddresses - 1) + "/[ef]req");
+	}
+
+	@Benchmark
+	public int dispatchLiteral() {
+		return disp.dispatch(literalMsg, null, 1L);
+	}
+
+	@Benchmark
+	public int dispatchPattern() {
+		return disp.dispatch(patternMsg, null, 1L);
+	}
+
+	@Benchmark
+	public void listenerChain(Blackhole bh) {
+		final String name = literalMsg.getName();
+		for (String address : addresses) {
+			if (name.equals(address)) bh.consume(address);
+		}
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ *  OSCPacketCodecBenchmark.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sciss.net.OSCBundle;
+import de.sciss.net.OSCMessage;
+import de.sciss.net.OSCMessageTemplate;
+import de.sciss.net.OSCMessageWriter;
+import de.sciss.net.OSCPacket;
+import de.sciss.net.OSCPacketCodec;
+
+/**
+ *	JMH benchmarks for the hot path of <code>OSCPacketCodec</code>:
+ *	message and bundle encoding, decoding and size calculation.
+ *	<code>writeMessage</code> encodes the same message using
+ *	an <code>OSCMessageWriter</code> from unboxed arguments,
+ *	<code>patchTemplate</code> replaces all numeric arguments of
+ *	a compiled <code>OSCMessageTemplate</code>, and <code>decodeMessageCached</code>
+ *	decodes with the address cache enabled. <code>decodeMessageLazy</code>
+ *	decodes with lazy argument decoding and only reads the message name,
+ *	as a listener dropping the message would. <code>encodeGrowing*</code>
+ *	encode into a buffer which starts small and is replaced on demand.
+ *	The benchmarks are parametrized by codec support mode,
+ *	argument payload (numeric-heavy, string-heavy or mixed)
+ *	and the nesting depth of the bundle benchmarks.
+ *	<p>
+ *	Run from sbt with the GC profiler to get allocation figures
+ *	(<code>gc.alloc.rate.norm</code> is bytes allocated per operation):
+ *	<pre>
+ *	sbt "bench/jmh:run -prof gc OSCPacketCodecBenchmark"
+ *	</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OSCPacketCodecBenchmark {
+	/**
+	 *	Codec support mode, one of the <code>MODE_*</code> presets
+	 */
+	@Param({ "STRICT_V1", "MODEST", "GRACEFUL", "FAT_V1" })
+	public String mode;
+
+	/**
+	 *	Argument list flavour. Only <code>Integer</code>, <code>Float</code>
+	 *	and <code>String</code> arguments are used, so that every mode can encode them.
+	 */
+	@Param({ "numeric", "string", "mixed" })
+	public String payload;
+
+	/**
+	 *	Number of arguments per message
+	 */
+	@Param({ "4", "32" })
+	public int numArgs;
+
+	/**
+	 *	Nesting depth of the bundle used in the bundle benchmarks
+	 */
+	@Param({ "1", "4" })
+	public int depth;
+
+	private OSCPacketCodec	c;
+	private OSCPacketCodec	cCached;
+	private OSCPacketCodec	cLazy;
+	private OSCMessage		msg;
+	private OSCBundle		bndl;
+	private ByteBuffer		encodeBuf;
+	private ByteBuffer		growBuf;
+	private ByteBuffer		msgBuf;
+	private ByteBuffer		bndlBuf;
+	private OSCMessageWriter	writer;
+	private OSCMessageTemplate	template;
+	private String			msgName;
+	private char[]			argTypes;
+	private int[]			intArgs;
+	private float[]			floatArgs;
+	private String[]		stringArgs;
+
+	@Setup
+	public void setup()
+			throws IOException {
+		c			= new OSCPacketCodec(modeFor(mode));
+		cCached		= new OSCPacketCodec(modeFor(mode));
+		cCached.setAddressCacheCapacity(256);
+		cLazy		= new OSCPacketCodec(modeFor(mode));
+		cLazy.setLazyDecoding(true);
+		msg			= createMessage(new Random(0x1234578L));
+		bndl		= createBundle(new Random(0x8765432L), depth);
+		encodeBuf	= ByteBuffer.allocateDirect(65536);
+		growBuf		= ByteBuffer.allocateDirect(64);
+
+		msgBuf		= ByteBuffer.allocateDirect(c.getSize(msg));
+		c.encode(msg, msgBuf);
+		bndlBuf		= ByteBuffer.allocateDirect(c.getSize(bndl));
+		c.encode(bndl, bndlBuf);
+
+		writer		= new OSCMessageWriter(c);
+		template	= c.compile(msg);
+		msgName		= msg.getName();
+		argTypes	= new char[numArgs];
+		intArgs		= new int[numArgs];
+		floatArgs	= new float[numArgs];
+		stringArgs	= new String[numArgs];
+		for (int i = 0; i < numArgs; i++) {
+			final Object arg = msg.getArg(i);
+			if (arg instanceof Integer) {
+				argTypes[i]		= 'i';
+				intArgs[i]		= (Integer) arg;
+			} else if (arg instanceof Float) {
+				argTypes[i]		= 'f';
+				floatArgs[i]	= (Float) arg;
+			} else {
+				argTypes[i]		= 's';
+				stringArgs[i]	= (String) arg;
+			}
+		}
+	}
+
+	@Benchmark
+	public ByteBuffer encodeMessage()
+			throws IOException {
+		encodeBuf.clear();
+		c.encode(msg, encodeBuf);
+		return encodeBuf;
+	}
+
+	@Benchmark
+	public ByteBuffer encodeGrowingMessage()
+			throws IOException {
+		growBuf.clear();
+		growBuf = c.encodeGrowing(msg, growBuf, 65536);
+		return growBuf;
+	}
+
+	@Benchmark
+	public ByteBuffer writeMessage() {
+		encodeBuf.clear();
+		writer.wrap(encodeBuf).address(msgName);
+		for (int i = 0; i < numArgs; i++) {
+			switch (argTypes[i]) {
+				case 'i':
+					writer.addInt(intArgs[i]);
+					break;
+				case 'f':
+					writer.addFloat(floatArgs[i]);
+					break;
+				default:
+					writer.addString(stringArgs[i]);
+					break;
+			}
+		}
+		writer.finish();
+		return encodeBuf;
+	}
+
+	@Benchmark
+	public ByteBuffer patchTemplate() {
+		for (int i = 0; i < numArgs; i++) {
+			switch (argTypes[i]) {
+				case 'i':
+					template.setInt(i, intArgs[i]);
+					break;
+				case 'f':
+					template.setFloat(i, floatArgs[i]);
+					break;
+				default:
+					break;
+			}
+		}
+		return template.getBuffer();
+	}
+
+	@Benchmark
+	public OSCPacket decodeMessage()
+			throws IOException {
+		msgBuf.clear();
+		return c.decode(msgBuf);
+	}
+
+	@Benchmark
+	public OSCPacket decodeMessageCached()
+			throws IOException {
+		msgBuf.clear();
+		return cCached.decode(msgBuf);
+	}
+
+	@Benchmark
+	public String decodeMessageLazy()
+			throws IOException {
+		msgBuf.clear();
+		return ((OSCMessage) cLazy.decode(msgBuf)).getName();
+	}
+
+	@Benchmark
+	public int getSizeMessage()
+			throws IOException {
+		return c.getSize(msg);
+	}
+
+	@Benchmark
+	public ByteBuffer encodeBundle()
+			throws IOException {
+		encodeBuf.clear();
+		c.encode(bndl, encodeBuf);
+		return encodeBuf;
+	}
+
+	@Benchmark
+	public ByteBuffer encodeGrowingBundle()
+			throws IOException {
+		growBuf.clear();
+		growBuf = c.encodeGrowing(bndl, growBuf, 65536);
+		return growBuf;
+	}
+
+	@Benchmark
+	public OSCPacket decodeBundle()
+			throws IOException {
+		bndlBuf.clear();
+		return c.decode(bndlBuf);
+	}
+
+	@Benchmark
+	public int getSizeBundle()
+			throws IOException {
+		return c.getSize(bndl);
+	}
+
+	private static int modeFor(String name) {
+		if (name.equals("STRICT_V1")) return OSCPacketCodec.MODE_STRICT_V1;
+		if (name.equals("MODEST"))    return OSCPacketCodec.MODE_MODEST;
+		if (name.equals("GRACEFUL"))  return OSCPacketCodec.MODE_GRACEFUL;
+		if (name.equals("FAT_V1"))    return OSCPacketCodec.MODE_FAT_V1;
+		throw new IllegalArgumentException(name);
+	}
+
+	private OSCMessage createMessage(Random rnd) {
+		final Object[] args = new Object[numArgs];
+		for (int i = 0; i < numArgs; i++) {
+			if (payload.equals("numeric")) {
+				args[i] = (i % 2 == 0) ? (Object) rnd.nextInt() : (Object) rnd.nextFloat();
+			} else if (payload.equals("string")) {
+				args[i] = createString(rnd);
+			} else {
+				switch (i % 3) {
+					case 0:
+						args[i] = rnd.nextInt();
+						break;
+					case 1:
+						args[i] = rnd.nextFloat();
+						break;
+					default:
+						args[i] = createString(rnd);
+						break;
+				}
+			}
+		}
+		return new OSCMessage("/n_set", args);
+	}
+
+	private OSCBundle createBundle(Random rnd, int depth) {
+		final OSCBundle b = new OSCBundle(System.currentTimeMillis());
+		b.addPacket(createMessage(rnd));
+		b.addPacket(createMessage(rnd));
+		if (depth > 1) b.addPacket(createBundle(rnd, depth - 1));
+		return b;
+	}
+
+	private static String createString(Random rnd) {
+		final char[] chars = new char[4 + rnd.nextInt(13)];
+		for (int i = 0; i < chars.length; i++) chars[i] = (char) ('a' + rnd.nextInt(26));
+		return new String(chars);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ *  SlipFramingBenchmark.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net.bench;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sciss.net.OSCListener;
+import de.sciss.net.OSCMessage;
+import de.sciss.net.OSCPacket;
+import de.sciss.net.OSCServer;
+import de.sciss.net.OSCTransmitter;
+
+/**
+ *	JMH benchmarks comparing the size prefixed framing of <code>TCP</code>
+ *	with the SLIP framing of <code>TCP_SLIP</code> over the loopback interface.
+ *	Each invocation sends a burst of <code>burstSize</code> messages carrying
+ *	a blob of <code>blobSize</code> bytes and waits until the server has
+ *	decoded all of them, so encoding, framing, deframing and decoding are
+ *	measured together. With <code>escapes</code>, every fourth byte of the
+ *	blob is a SLIP END or ESC byte which must be escaped.
+ *	<pre>
+ *	sbt "bench/jmh:run SlipFramingBenchmark"
+ *	</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlipFramingBenchmark {
+	@Param({ "tcp", "tcp-slip" })
+	public String protocol;
+
+	@Param({ "16", "1024" })
+	public int blobSize;
+
+	@Param({ "false", "true" })
+	public boolean escapes;
+
+	@Param({ "64" })
+	public int burstSize;
+
+	private OSCServer				server;
+	private OSCTransmitter			trns;
+	private SocketAddress			target;
+	private List<OSCPacket>			burst;
+	private final AtomicInteger		received	= new AtomicInteger();
+	private int						expected;
+
+	@Setup
+	public void setup()
+			throws IOException {
+		server = OSCServer.newUsing(protocol, new InetSocketAddress("127.0.0.1", 0));
+		server.setBufferSize(65536);
+		server.addOSCListener(new OSCListener() {
+			public void messageReceived(OSCMessage m, SocketAddress sender, long time) {
+				received.incrementAndGet();
+			}
+		});
+		server.start();
+		target	= new InetSocketAddress("127.0.0.1", server.getLocalAddress().getPort());
+		trns	= OSCTransmitter.newUsing(protocol);
+		trns.setBufferSize(65536);
+		trns.setTarget(target);
+		trns.connect();
+
+		final byte[] blob = new byte[blobSize];
+		for (int i = 0; i < blobSize; i++) {
+			blob[i] = escapes && ((i & 3) == 0) ? (((i & 4) == 0) ? (byte) 0xC0 : (byte) 0xDB) : (byte) (i & 0x7F);
+		}
+		burst = new ArrayList<OSCPacket>(burstSize);
+		for (int i = 0; i < burstSize; i++) {
+			burst.add(new OSCMessage("/b_setn", new Object[] { i, 0, blobSize, blob }));
+		}
+		received.set(0);
+		expected = 0;
+	}
+
+	@TearDown
+	public void tearDown()
+			throws IOException {
+		trns.dispose();
+		server.dispose();
+	}
+
+	@Benchmark
+	public void sendAndReceive()
+			throws IOException {
+		trns.send(burst, target);
+		expected += burstSize;
+		while (received.get() < expected) {
+			Thread.yield();
+		}
+	}
+}
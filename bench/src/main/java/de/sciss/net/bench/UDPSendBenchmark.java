@@ -0,0 +1,128 @@
+/*
+ *  UDPSendBenchmark.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net.bench;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sciss.net.OSCChannel;
+import de.sciss.net.OSCMessage;
+import de.sciss.net.OSCPacket;
+import de.sciss.net.OSCTransmitter;
+
+/**
+ *	JMH benchmarks for sending a burst of UDP messages over the loopback
+ *	interface. The receiving channels are never read, so the kernel drops
+ *	what does not fit into their buffers. <code>fanOutLoop</code> sends one
+ *	message to each target with separate <code>send</code> calls,
+ *	<code>fanOutBatch</code> uses <code>sendTo</code>, which encodes the message
+ *	only once. <code>burstLoop</code> and <code>burstBatch</code> send
+ *	<code>numTargets</code> messages to a single target.
+ *	Each invocation sends <code>numTargets</code> datagrams.
+ *	<pre>
+ *	sbt "bench/jmh:run UDPSendBenchmark"
+ *	</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UDPSendBenchmark {
+	/**
+	 *	Number of targets, or messages in a burst
+	 */
+	@Param({ "1", "16", "128" })
+	public int numTargets;
+
+	private OSCTransmitter			trns;
+	private DatagramChannel[]		sinks;
+	private List<SocketAddress>		targets;
+	private List<OSCPacket>			burst;
+	private OSCMessage				msg;
+
+	@Setup
+	public void setup()
+			throws IOException {
+		trns	= OSCTransmitter.newUsing(OSCChannel.UDP, new InetSocketAddress("127.0.0.1", 0));
+		trns.connect();
+		sinks	= new DatagramChannel[numTargets];
+		targets	= new ArrayList<SocketAddress>(numTargets);
+		burst	= new ArrayList<OSCPacket>(numTargets);
+		msg		= new OSCMessage("/n_set", new Object[] { 1000, "freq", 441.0f, "amp", 0.1f, "gate", 1 });
+		for (int i = 0; i < numTargets; i++) {
+			sinks[i] = DatagramChannel.open();
+			sinks[i].socket().bind(new InetSocketAddress("127.0.0.1", 0));
+			targets.add(sinks[i].socket().getLocalSocketAddress());
+			burst.add(new OSCMessage("/n_set", new Object[] { 1000 + i, "freq", 441.0f, "amp", 0.1f, "gate", 1 }));
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+			throws IOException {
+		trns.dispose();
+		for (DatagramChannel sink : sinks) {
+			sink.close();
+		}
+	}
+
+	@Benchmark
+	public void fanOutLoop()
+			throws IOException {
+		for (SocketAddress target : targets) {
+			trns.send(msg, target);
+		}
+	}
+
+	@Benchmark
+	public void fanOutBatch()
+			throws IOException {
+		trns.sendTo(msg, targets);
+	}
+
+	@Benchmark
+	public void burstLoop()
+			throws IOException {
+		final SocketAddress target = targets.get(0);
+		for (OSCPacket p : burst) {
+			trns.send(p, target);
+		}
+	}
+
+	@Benchmark
+	public void burstBatch()
+			throws IOException {
+		trns.send(burst, targets.get(0));
+	}
+}
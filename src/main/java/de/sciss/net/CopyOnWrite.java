@@ -0,0 +1,62 @@
+/*
+ *  CopyOnWrite.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.util.Arrays;
+
+/*
+ *	Helpers for the copy-on-write listener arrays, which are
+ *	replaced as a whole so that dispatching threads can iterate
+ *	them without locking. Elements are compared by identity,
+ *	and may be null. Callers synchronize the replacement.
+ */
+final class CopyOnWrite {
+	private CopyOnWrite() { /* static methods only */ }
+
+	static int indexOf(Object[] arr, Object elem) {
+		for (int i = 0; i < arr.length; i++) {
+			if (arr[i] == elem) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 *	@return	a new array with <code>elem</code> appended
+	 */
+	static <T> T[] add(T[] arr, T elem) {
+		final T[] newArr = Arrays.copyOf(arr, arr.length + 1);
+		newArr[arr.length] = elem;
+		return newArr;
+	}
+
+	/**
+	 *	@return	a new array with <code>elem</code> appended, or <code>arr</code> if it
+	 *			already contains <code>elem</code>
+	 */
+	static <T> T[] addIfAbsent(T[] arr, T elem) {
+		return indexOf(arr, elem) >= 0 ? arr : add(arr, elem);
+	}
+
+	/**
+	 *	@return	a new array without the first occurrence of <code>elem</code>, or
+	 *			<code>arr</code> if it does not contain <code>elem</code>
+	 */
+	static <T> T[] remove(T[] arr, Object elem) {
+		final int i = indexOf(arr, elem);
+		if (i < 0) return arr;
+		final T[] newArr = Arrays.copyOf(arr, arr.length - 1);
+		System.arraycopy(arr, i + 1, newArr, i, newArr.length - i);
+		return newArr;
+	}
+}
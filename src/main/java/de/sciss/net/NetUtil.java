@@ -13,8 +13,13 @@
 
 package de.sciss.net;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.SelectableChannel;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -140,4 +145,72 @@ public class NetUtil {
 			return ("[Missing Resource: " + key + "]");
 		}
 	}
+
+	/**
+	 *	Returns a thread factory which creates virtual threads. Virtual
+	 *	threads are only available since Java 21, so the factory is looked up
+	 *	at runtime. It can be passed to the <code>setThreadFactory</code>
+	 *	methods of receivers, clients and servers, so that blocking
+	 *	receivers scale to many thousand connections without the memory
+	 *	needed by the stacks of platform threads.
+	 *
+	 *	@return	a factory for virtual threads, or <code>null</code> if
+	 *			the Java runtime does not support them
+	 *
+	 *	@see	OSCReceiver#setThreadFactory( ThreadFactory )
+	 *	@see	OSCClient#setThreadFactory( ThreadFactory )
+	 *	@see	OSCServer#setThreadFactory( ThreadFactory )
+	 */
+	public static ThreadFactory getVirtualThreadFactory() {
+		try {
+			final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		} catch (Exception e1) {    // NoSuchMethodException, ...
+			return null;
+		}
+	}
+
+	/*
+	 *	Creates a thread for a receiver, client or server. Without a factory,
+	 *	this is a named daemon platform thread, otherwise the factory
+	 *	decides about the thread's kind, name and daemon status.
+	 */
+	static Thread newThread(ThreadFactory f, Runnable r, String name) {
+		if (f == null) {
+			final Thread t = new Thread(r, name);
+			t.setDaemon(true);
+			return t;
+		}
+		return f.newThread(r);
+	}
+
+	/*
+	 *	Enables SO_REUSEPORT on an unbound channel, so that several
+	 *	channels can be bound to the same port. The option is only
+	 *	available since Java 9 and therefore looked up reflectively.
+	 *	The channel must be a <code>DatagramChannel</code> or
+	 *	<code>ServerSocketChannel</code>.
+	 *
+	 *	@throws	IOException	if the option is not supported by the runtime or platform
+	 */
+	static void setReusePort(SelectableChannel ch)
+			throws IOException {
+		final Object option;
+		final Method setOption;
+		try {
+			option		= Class.forName("java.net.StandardSocketOptions").getField("SO_REUSEPORT").get(null);
+			setOption	= Class.forName("java.nio.channels.NetworkChannel").getMethod("setOption", Class.forName("java.net.SocketOption"), Object.class);
+		} catch (Exception e1) {    // ClassNotFoundException, NoSuchFieldException, ...
+			throw new IOException(getResourceString("errReusePort"), e1);
+		}
+		try {
+			setOption.invoke(ch, option, Boolean.TRUE);
+		} catch (InvocationTargetException e1) {
+			final Throwable cause = e1.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			throw new IOException(getResourceString("errReusePort"), cause);    // UnsupportedOperationException
+		} catch (IllegalAccessException e2) {
+			throw new IOException(getResourceString("errReusePort"), e2);
+		}
+	}
 }
\ No newline at end of file
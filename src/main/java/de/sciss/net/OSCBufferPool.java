@@ -0,0 +1,181 @@
+/*
+ *  OSCBufferPool.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ *	A pool of direct byte buffers which is shared by all
+ *	transmitters and receivers. Buffers are organized in size classes
+ *	of powers of two, beginning at <code>MIN_CAPACITY</code> bytes.
+ *	A channel borrows a small buffer when it starts, replaces it by a
+ *	larger one when a packet does not fit (up to the channel's buffer size,
+ *	see <code>OSCChannel.setBufferSize</code>), and returns its buffer
+ *	when it is disposed.
+ *	<p>
+ *	Returned buffers are kept for reuse as long as the total
+ *	capacity of the idle buffers does not exceed a configurable limit.
+ *	Buffers are only borrowed and returned by the channels of this package,
+ *	the pool's limit and statistics can be queried and adjusted.
+ *
+ *	<b>Synchronization</b>	all methods are thread safe
+ *
+ *	@see	OSCChannel#setBufferSize( int )
+ */
+public class OSCBufferPool {
+	/**
+	 *	The capacity of the smallest size class
+	 */
+	public static final int				MIN_CAPACITY	= 512;
+
+	private static final OSCBufferPool	defaultPool		= new OSCBufferPool(16 << 20);
+
+	private final List<ByteBuffer>[]	free;
+	private long						maxPooledBytes;
+	private long						pooledBytes		= 0L;
+	private long						numAllocated	= 0L;
+
+	@SuppressWarnings("unchecked")
+	private OSCBufferPool(long maxPooledBytes) {
+		this.maxPooledBytes	= maxPooledBytes;
+		free				= new List[31];
+		for (int i = 0; i < free.length; i++) {
+			free[i] = new ArrayList<ByteBuffer>();
+		}
+	}
+
+	/**
+	 *	Returns the pool used by all transmitters and receivers.
+	 *
+	 *	@return	the shared buffer pool
+	 */
+	public static OSCBufferPool getDefaultPool() {
+		return defaultPool;
+	}
+
+	/**
+	 *	Borrows a direct buffer from the pool, allocating a new one
+	 *	if no idle buffer of the required size class exists.
+	 *
+	 *	@param	minCapacity	the minimum capacity of the buffer in bytes
+	 *	@return	a cleared direct buffer whose capacity is the
+	 *			smallest power of two of at least <code>minCapacity</code>
+	 *			and <code>MIN_CAPACITY</code>
+	 */
+	ByteBuffer acquire(int minCapacity) {
+		final int idx = sizeClass(minCapacity);
+		synchronized (this) {
+			final List<ByteBuffer> list = free[idx];
+			final int n = list.size();
+			if (n > 0) {
+				final ByteBuffer b = list.remove(n - 1);
+				pooledBytes -= b.capacity();
+				b.clear();
+				return b;
+			}
+			numAllocated++;
+		}
+		return ByteBuffer.allocateDirect(1 << idx);
+	}
+
+	/**
+	 *	Returns a buffer obtained from <code>acquire</code> to the pool. The
+	 *	caller must not use the buffer afterwards, and must return it only once.
+	 *	A buffer which is already idle in the pool is not added again, so that
+	 *	it cannot be handed out twice. Buffers which would exceed the pool's
+	 *	limit are left to the garbage collector.
+	 *
+	 *	@param	b	the buffer to return, may be <code>null</code>
+	 */
+	void release(ByteBuffer b) {
+		if ((b == null) || !b.isDirect()) return;
+		final int cap = b.capacity();
+		if ((cap < MIN_CAPACITY) || ((cap & (cap - 1)) != 0)) return;
+		final int idx = sizeClass(cap);
+		synchronized (this) {
+			final List<ByteBuffer> list = free[idx];
+			for (int i = list.size() - 1; i >= 0; i--) {
+				if (list.get(i) == b) {	// released twice, which is a bug of the caller
+					NetUtil.log(Level.WARNING, "", new IllegalStateException("buffer released twice"));
+					return;
+				}
+			}
+			if (pooledBytes + cap > maxPooledBytes) return;
+			list.add(b);
+			pooledBytes += cap;
+		}
+	}
+
+	/**
+	 *	Specifies the maximum total capacity of idle buffers kept in the pool.
+	 *	Excess idle buffers are discarded.
+	 *
+	 *	@param	bytes	the maximum number of bytes, or <code>0</code> to
+	 *					disable pooling
+	 */
+	public void setMaxPooledBytes(long bytes) {
+		synchronized (this) {
+			maxPooledBytes = bytes;
+			for (int i = free.length - 1; (i >= 0) && (pooledBytes > maxPooledBytes); i--) {
+				final List<ByteBuffer> list = free[i];
+				while (!list.isEmpty() && (pooledBytes > maxPooledBytes)) {
+					pooledBytes -= list.remove(list.size() - 1).capacity();
+				}
+			}
+		}
+	}
+
+	/**
+	 *	Queries the maximum total capacity of idle buffers kept in the pool.
+	 *
+	 *	@return	the maximum number of bytes
+	 */
+	public long getMaxPooledBytes() {
+		synchronized (this) {
+			return maxPooledBytes;
+		}
+	}
+
+	/**
+	 *	Queries the total capacity of the idle buffers currently kept in the pool.
+	 *
+	 *	@return	the number of bytes of idle buffers
+	 */
+	public long getPooledBytes() {
+		synchronized (this) {
+			return pooledBytes;
+		}
+	}
+
+	/**
+	 *	Queries the number of buffers which had to be newly allocated
+	 *	because no idle buffer was available.
+	 *
+	 *	@return	the number of allocations since the application was started
+	 */
+	public long getAllocationCount() {
+		synchronized (this) {
+			return numAllocated;
+		}
+	}
+
+	private static int sizeClass(int capacity) {
+		if (capacity > (1 << 30)) throw new IllegalArgumentException(String.valueOf(capacity));
+		final int n = Math.max(capacity, MIN_CAPACITY);
+		return 32 - Integer.numberOfLeadingZeros(n - 1);
+	}
+}
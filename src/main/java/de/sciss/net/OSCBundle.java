@@ -108,6 +108,9 @@ public class OSCBundle
 	private long timetag;   // 64 bit fixed point seconds since 1 jan 1900
 	protected final List<OSCPacket> collPackets  = new ArrayList<OSCPacket>();
 
+	// whether the bundle was modified after it was decoded from a blob
+	private volatile boolean modified = false;
+
 	/**
 	 *  Creates a new empty OSCBundle
 	 *  with timetag set to &quot;immediately&quot;.
@@ -182,6 +185,7 @@ public class OSCBundle
 		if (p != null) {
 			synchronized (collPackets) {
 				collPackets.add(p);
+				modified = true;
 			}
 		}
 	}
@@ -224,6 +228,7 @@ public class OSCBundle
 	public void removePacket(int idx) {
 		synchronized (collPackets) {
 			collPackets.remove(idx);
+			modified = true;
 		}
 	}
 
@@ -243,10 +248,12 @@ public class OSCBundle
 		final long secsSince1900	= when / 1000 + SECONDS_FROM_1900_TO_1970;
 		final long secsFractional 	= ((when % 1000) << 32) / 1000;
 		timetag = (secsSince1900 << 32) | secsFractional;
+		modified = true;
 	}
 
 	public void setTimeTagRaw(long raw) {
 		timetag = raw;
+		modified = true;
 	}
 
 	/**
@@ -262,6 +269,7 @@ public class OSCBundle
 	 */
 	public void setTimeTagRelSecs(double when) {
 		timetag = ((long) when << 32) + (long) ((when % 1.0) * 0x100000000L + 0.5);
+		modified = true;
 	}
 
 	/**
@@ -280,6 +288,7 @@ public class OSCBundle
 	public void setTimeTagSamples(long absMillisOffset, long sampleFrames, int sampleRate) {
 		final double seconds = (double) sampleFrames / (double) sampleRate + (double) absMillisOffset / 1000;
 		timetag = (((long) seconds + SECONDS_FROM_1900_TO_1970) << 32) + (long) ((seconds % 1.0) * 0x100000000L + 0.5);
+		modified = true;
 	}
 
 	/**
@@ -292,4 +301,36 @@ public class OSCBundle
 		// TODO a utility method to convert this to a more useful value
 		return timetag;
 	}
-}
\ No newline at end of file
+
+	void setEncoded(byte[] b) {
+		super.setEncoded(b);
+		clearModified();
+	}
+
+	byte[] getEncoded() {
+		final byte[] b = super.getEncoded();
+		return ((b == null) || isModified()) ? null : b;
+	}
+
+	private void clearModified() {
+		synchronized (collPackets) {
+			modified = false;
+			for (int i = 0; i < collPackets.size(); i++) {
+				final OSCPacket p = collPackets.get(i);
+				if (p instanceof OSCBundle) ((OSCBundle) p).clearModified();
+			}
+		}
+	}
+
+	// nested bundles are part of the encoded bytes, too
+	private boolean isModified() {
+		synchronized (collPackets) {
+			if (modified) return true;
+			for (int i = 0; i < collPackets.size(); i++) {
+				final OSCPacket p = collPackets.get(i);
+				if ((p instanceof OSCBundle) && ((OSCBundle) p).isModified()) return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,335 @@
+/*
+ *  OSCBundleScheduler.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.net.SocketAddress;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/*
+ *	Holds back bundles with a time tag in the future and dispatches
+ *	them on a single thread when they are due. The pending bundles
+ *	form a binary heap ordered by their due time, stored in parallel
+ *	arrays which only grow, up to the maximum depth, so scheduling a
+ *	bundle allocates nothing once they are large enough.
+ *	Bundles due at the same time are dispatched in the order in which
+ *	they arrived. When the maximum depth is reached, further bundles are
+ *	not held back but dispatched right away, so that a sender flooding
+ *	the receiver with future bundles cannot exhaust the memory.
+ *
+ *	Blobs which were decoded as slices of the receive buffer
+ *	(OSCPacketCodec.MODE_READ_BLOB_AS_BUFFER) are copied when a bundle
+ *	is held back, as the buffer is reused before the bundle is due.
+ *
+ *	Time tags are wall clock times. The scheduler measures time with
+ *	System.nanoTime, calibrated against System.currentTimeMillis, and
+ *	recalibrates when the two drift apart, e.g. because the system
+ *	clock was adjusted.
+ */
+final class OSCBundleScheduler
+		implements Runnable {
+
+	private static final long	SECONDS_FROM_1900_TO_1970	= 2208988800L;
+	private static final long	MAX_DRIFT					= 2000000L;	// nanoseconds before recalibrating
+
+	private final OSCReceiver		rcv;
+	private final long				latency;	// nanoseconds by which bundles are dispatched early
+	private final int				maxSize;	// the maximum depth
+
+	private final ReentrantLock		lock		= new ReentrantLock();
+	private final Condition			cond		= lock.newCondition();
+
+	private long[]					due			= new long[0];	// the heap
+	private long[]					seq			= new long[0];
+	private OSCBundle[]				bundles		= new OSCBundle[0];
+	private SocketAddress[]			senders		= new SocketAddress[0];
+	private int						size		= 0;
+	private long					nextSeq		= 0L;
+	private boolean					closed		= true;
+
+	private long					clockOffset;	// epoch nanoseconds minus System.nanoTime
+
+	// statistics, guarded by lock
+	private int						maxDepth		= 0;
+	private long					numScheduled	= 0L;
+	private long					sumLateness		= 0L;
+	private long					maxLateness		= 0L;
+	private long					numLate			= 0L;
+	private long					numOverflows	= 0L;
+
+	OSCBundleScheduler(OSCReceiver rcv, int latency, int maxDepth) {
+		if (maxDepth < 1) throw new IllegalArgumentException(String.valueOf(maxDepth));
+		this.rcv		= rcv;
+		this.latency	= latency * 1000000L;
+		this.maxSize	= maxDepth;
+	}
+
+	/**
+	 *	Converts an OSC time tag to nanoseconds since 1 jan 1970.
+	 */
+	static long toEpochNanos(long timeTag) {
+		final long secs = (timeTag >>> 32) - SECONDS_FROM_1900_TO_1970;
+		final long frac = ((timeTag & 0xFFFFFFFFL) * 1000000000L) >>> 32;
+		return secs * 1000000000L + frac;
+	}
+
+	/**
+	 *	Schedules a bundle unless it is already due or the maximum depth is reached.
+	 *
+	 *	@return	<code>false</code> if the bundle should be dispatched right away
+	 */
+	boolean schedule(OSCBundle b, SocketAddress sender) {
+		final long tag = b.getTimeTag();
+		if (tag == OSCBundle.NOW) return false;
+		final long t = toEpochNanos(tag) - latency;
+		lock.lock();
+		try {
+			if (closed) return false;
+			final long late = now() - t;
+			if (late >= 0L) {
+				if (late > 0L) {
+					numLate++;
+					if (late > maxLateness) maxLateness = late;
+				}
+				return false;
+			}
+			if (size == maxSize) {
+				numOverflows++;
+				return false;
+			}
+			copyBlobs(b);	// before the receive buffer is reused
+			if (size == due.length) grow();
+			due[size]		= t;
+			seq[size]		= nextSeq++;
+			bundles[size]	= b;
+			senders[size]	= sender;
+			if (siftUp(size++) == 0) cond.signal();	// the thread may have to wake up earlier
+			if (size > maxDepth) maxDepth = size;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void open() {
+		lock.lock();
+		try {
+			calibrate();
+			closed = false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *	Stops the thread. Bundles not yet dispatched are discarded.
+	 */
+	void close() {
+		lock.lock();
+		try {
+			closed = true;
+			for (int i = 0; i < size; i++) {
+				bundles[i] = null;
+				senders[i] = null;
+			}
+			size = 0;
+			cond.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	int getDepth() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	int getMaxDepth() {
+		lock.lock();
+		try {
+			return maxDepth;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// microseconds
+	long getMeanLateness() {
+		lock.lock();
+		try {
+			return numScheduled == 0L ? 0L : sumLateness / numScheduled / 1000;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// microseconds
+	long getMaxLateness() {
+		lock.lock();
+		try {
+			return maxLateness / 1000;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	long getLateCount() {
+		lock.lock();
+		try {
+			return numLate;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	long getOverflowCount() {
+		lock.lock();
+		try {
+			return numOverflows;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void run() {
+		while (true) {
+			final OSCBundle		b;
+			final SocketAddress	sender;
+			lock.lock();
+			try {
+				while (true) {
+					if (closed) return;
+					if (size == 0) {
+						cond.await();
+					} else {
+						final long wait = due[0] - now();
+						if (wait <= 0L) break;
+						cond.awaitNanos(wait);
+					}
+				}
+				final long late = now() - due[0];
+				numScheduled++;
+				sumLateness += late;
+				if (late > maxLateness) maxLateness = late;
+				b		= bundles[0];
+				sender	= senders[0];
+				removeFirst();
+			} catch (InterruptedException e1) {
+				NetUtil.log(Level.INFO, "", e1);
+				return;
+			} finally {
+				lock.unlock();
+			}
+			try {
+				rcv.dispatchBundle(b, sender);
+			} catch (RuntimeException e2) {    // e.g. thrown by a listener; keep the thread alive
+				NetUtil.log(Level.SEVERE, "", e2);
+			}
+		}
+	}
+
+	private static void copyBlobs(OSCBundle b) {
+		for (int i = 0; i < b.getPacketCount(); i++) {
+			final OSCPacket p = b.getPacket(i);
+			if (p instanceof OSCMessage) {
+				((OSCMessage) p).copyBlobs();
+			} else if (p instanceof OSCBundle) {
+				copyBlobs((OSCBundle) p);
+			}
+		}
+	}
+
+	// call with lock held
+	private long now() {
+		long t = System.nanoTime() + clockOffset;
+		final long drift = t - System.currentTimeMillis() * 1000000L;
+		if ((drift > MAX_DRIFT) || (drift < -MAX_DRIFT)) {
+			calibrate();
+			t = System.nanoTime() + clockOffset;
+		}
+		return t;
+	}
+
+	private void calibrate() {
+		clockOffset = System.currentTimeMillis() * 1000000L - System.nanoTime();
+	}
+
+	private boolean before(int i, int j) {
+		return (due[i] < due[j]) || ((due[i] == due[j]) && (seq[i] < seq[j]));
+	}
+
+	private void swap(int i, int j) {
+		final long			t	= due[i];
+		final long			s	= seq[i];
+		final OSCBundle		b	= bundles[i];
+		final SocketAddress	a	= senders[i];
+		due[i]		= due[j];
+		seq[i]		= seq[j];
+		bundles[i]	= bundles[j];
+		senders[i]	= senders[j];
+		due[j]		= t;
+		seq[j]		= s;
+		bundles[j]	= b;
+		senders[j]	= a;
+	}
+
+	// returns the final index
+	private int siftUp(int i) {
+		while (i > 0) {
+			final int parent = (i - 1) >> 1;
+			if (!before(i, parent)) break;
+			swap(i, parent);
+			i = parent;
+		}
+		return i;
+	}
+
+	private void removeFirst() {
+		size--;
+		if (size > 0) swap(0, size);
+		bundles[size] = null;
+		senders[size] = null;
+		int i = 0;
+		while (true) {
+			final int left = (i << 1) + 1;
+			if (left >= size) break;
+			final int right	= left + 1;
+			final int child	= ((right < size) && before(right, left)) ? right : left;
+			if (!before(child, i)) break;
+			swap(i, child);
+			i = child;
+		}
+	}
+
+	private void grow() {
+		final int n = (int) Math.min(maxSize, Math.max(64L, (long) due.length << 1));
+		final long[]			newDue		= new long[n];
+		final long[]			newSeq		= new long[n];
+		final OSCBundle[]		newBundles	= new OSCBundle[n];
+		final SocketAddress[]	newSenders	= new SocketAddress[n];
+		System.arraycopy(due, 0, newDue, 0, size);
+		System.arraycopy(seq, 0, newSeq, 0, size);
+		System.arraycopy(bundles, 0, newBundles, 0, size);
+		System.arraycopy(senders, 0, newSenders, 0, size);
+		due		= newDue;
+		seq		= newSeq;
+		bundles	= newBundles;
+		senders	= newSenders;
+	}
+}
@@ -38,6 +38,14 @@ public interface OSCChannel
 	 *	<A HREF="http://en.wikipedia.org/wiki/Transmission_Control_Protocol">en.wikipedia.org/wiki/Transmission_Control_Protocol</A> for explanation
 	 */
 	public static final String			TCP				= "tcp";
+	/**
+	 *	Protocol type : transmission control protocol with SLIP framing, as
+	 *	recommended by the OSC 1.1 specification for stream transports.
+	 *	Each packet is enclosed in <code>END</code> bytes (<code>0xC0</code>),
+	 *	instead of being preceded by its size as with <code>TCP</code>.
+	 *	<A HREF="http://tools.ietf.org/html/rfc1055">tools.ietf.org/html/rfc1055</A> for explanation
+	 */
+	public static final String			TCP_SLIP		= "tcp-slip";
 
 	/**
 	 *	Dump mode: do not dump messages
@@ -92,9 +100,15 @@ public interface OSCChannel
 	/**
 	 *	Adjusts the buffer size for OSC messages.
 	 *	This is the maximum size an OSC packet (bundle or message) can grow to.
+	 *	Buffers are borrowed from the shared <code>OSCBufferPool</code>. Except
+	 *	for UDP receivers, which must be able to hold any incoming datagram,
+	 *	channels start with a small buffer which grows on demand up to this size,
+	 *	so a large size does not waste memory.
 	 *
 	 *	@param	size					the new size in bytes.
 	 *
+	 *	@see	OSCBufferPool
+	 *
 	 *	@see	#getBufferSize()
 	 */
 	public void setBufferSize(int size);
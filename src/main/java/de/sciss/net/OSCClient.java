@@ -17,6 +17,8 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadFactory;
 
 /**
  *	This class groups together a transmitter and receiver, allowing bidirectional
@@ -124,7 +126,7 @@ public class OSCClient
 	 *	and uses the local machine's IP. To determine the resulting
 	 *	port, you can use <code>getLocalAddress</code> afterwards.
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created client
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -146,7 +148,7 @@ public class OSCClient
 	 *	port, you can use <code>getLocalAddress</code> afterwards.
 	 * 
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created client
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -172,7 +174,7 @@ public class OSCClient
 	 *	and to which messages are sent. The target socket can be set
 	 *	using the <code>setTarget</code> method!
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created client
 	 *
@@ -196,7 +198,7 @@ public class OSCClient
 	 *	using the <code>setTarget</code> method!
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created client
 	 *
@@ -219,7 +221,7 @@ public class OSCClient
 	 *	and to which messages are sent. The target socket can be set
 	 *	using the <code>setTarget</code> method!
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -248,7 +250,7 @@ public class OSCClient
 	 *	using the <code>setTarget</code> method!
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -279,7 +281,7 @@ public class OSCClient
 	 *	use the <code>setTarget</code> method!
 	 *	<P>
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created client
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -304,7 +306,7 @@ public class OSCClient
 	 *	<P>
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created client
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -425,6 +427,25 @@ public class OSCClient
 		trns.send(p);
 	}
 
+	/**
+	 *	Sends an already encoded OSC packet to the target
+	 *	network address. The packet is made up of the bytes
+	 *	between the buffer's position and limit, for example
+	 *	as written by an <code>OSCMessageWriter</code>.
+	 *
+	 *	@param	b		the buffer containing the encoded packet
+	 *
+	 *	@throws	IOException				if a write error or network error occurs,
+	 *									for example if a TCP client was not connected before.
+	 *	@throws	NullPointerException	for a UDP client if the target has not been specified
+	 *
+	 *	@see	OSCTransmitter#send( ByteBuffer, SocketAddress )
+	 */
+	public void send(ByteBuffer b)
+			throws IOException {
+		trns.send(b);
+	}
+
 	/**
 	 *  Registers a listener that gets informed
 	 *  about incoming messages. You can call this
@@ -447,6 +468,30 @@ public class OSCClient
 		rcv.removeOSCListener(listener);
 	}
 
+	/**
+	 *  Registers a listener that gets informed
+	 *  about incoming messages through a reusable message view.
+	 *  You can call this both when the client is active or inactive.
+	 *
+	 *  @param  listener	the listener to register
+	 *
+	 *  @see	OSCReceiver#addMessageViewListener( OSCMessageViewListener )
+	 */
+	public void addMessageViewListener(OSCMessageViewListener listener) {
+		rcv.addMessageViewListener(listener);
+	}
+
+	/**
+	 *  Unregisters a listener that gets informed
+	 *  about incoming messages through a message view
+	 *
+	 *  @param  listener	the listener to remove from
+	 *						the list of notified objects.
+	 */
+	public void removeMessageViewListener(OSCMessageViewListener listener) {
+		rcv.removeMessageViewListener(listener);
+	}
+
 	/**
 	 *  Registers a listener that gets informed
 	 *  about `connect` calls and eventual disconnection of the receiver.
@@ -509,6 +554,97 @@ public class OSCClient
 		rcv.stopListening();
 	}
 
+	/**
+	 *	Specifies how the client's listening thread is created.
+	 *	By default, a platform daemon thread is used. With a factory for virtual
+	 *	threads (see <code>NetUtil.getVirtualThreadFactory</code>), an application
+	 *	can run many thousand clients. The new factory is used the next time the
+	 *	client is started.
+	 *
+	 *	@param	f	the factory to use, or <code>null</code> to use a platform daemon thread
+	 *
+	 *	@see	NetUtil#getVirtualThreadFactory()
+	 *	@see	OSCReceiver#setThreadFactory( ThreadFactory )
+	 */
+	public void setThreadFactory(ThreadFactory f) {
+		rcv.setThreadFactory(f);
+	}
+
+	/**
+	 *	Queries the factory for the client's listening thread.
+	 *
+	 *	@return	the factory, or <code>null</code> if a platform daemon thread is used
+	 */
+	public ThreadFactory getThreadFactory() {
+		return rcv.getThreadFactory();
+	}
+
+	/**
+	 *	Specifies options such as <code>TCP_NODELAY</code> or the socket buffer
+	 *	sizes. They are applied immediately if the client is connected, and
+	 *	otherwise when it connects.
+	 *
+	 *	@param	options	the options to use, or <code>null</code> to use the
+	 *					operating system's defaults
+	 *
+	 *	@throws	IOException	if an option cannot be applied to the connected socket
+	 *
+	 *	@see	OSCTransmitter#setSocketOptions( OSCSocketOptions )
+	 */
+	public void setSocketOptions(OSCSocketOptions options)
+			throws IOException {
+		trns.setSocketOptions(options);
+	}
+
+	/**
+	 *	Queries the socket options.
+	 *
+	 *	@return	the options, or <code>null</code> if the defaults are used
+	 */
+	public OSCSocketOptions getSocketOptions() {
+		return trns.getSocketOptions();
+	}
+
+	/**
+	 *	Turns write coalescing of outgoing packets on or off. This is only
+	 *	supported for <code>TCP</code>.
+	 *
+	 *	@param	onOff		<code>true</code> to collect packets until the buffer is full,
+	 *						<code>flush</code> is called, or the delay has passed
+	 *	@param	maxDelay	the maximum time in milliseconds a packet is held back, or
+	 *						<code>0</code> for no limit
+	 *
+	 *	@throws	IOException	if flushing the collected packets fails
+	 *	@throws	UnsupportedOperationException	for a <code>UDP</code> client
+	 *
+	 *	@see	OSCTransmitter#setCoalescing( boolean, int )
+	 */
+	public void setCoalescing(boolean onOff, int maxDelay)
+			throws IOException {
+		trns.setCoalescing(onOff, maxDelay);
+	}
+
+	/**
+	 *	Queries whether write coalescing is on.
+	 *
+	 *	@return	<code>true</code> if outgoing packets are collected
+	 */
+	public boolean isCoalescing() {
+		return trns.isCoalescing();
+	}
+
+	/**
+	 *	Writes the packets collected in coalescing mode.
+	 *
+	 *	@throws	IOException	if a write error or network error occurs
+	 *
+	 *	@see	#setCoalescing( boolean, int )
+	 */
+	public void flush()
+			throws IOException {
+		trns.flush();
+	}
+
 	/**
 	 *	Adjusts the buffer size for OSC messages (both for sending and receiving).
 	 *	This is the maximum size an OSC packet (bundle or message) can grow to.
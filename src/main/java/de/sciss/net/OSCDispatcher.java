@@ -0,0 +1,332 @@
+/*
+ *  OSCDispatcher.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *	An <code>OSCListener</code> which forwards each incoming message
+ *	to the handlers registered for the message's address. In terms of the
+ *	OSC 1.0 specification, the registered addresses are the OSC methods, and
+ *	the address of an incoming message may be a pattern using
+ *	<code>'*'</code>, <code>'?'</code>, <code>[abc]</code>, <code>[a-z]</code>,
+ *	<code>[!abc]</code> and <code>{foo,bar}</code>, in which case
+ *	the handlers of all matching methods are invoked.
+ *	<p>
+ *	A dispatcher is plugged into anything that accepts an <code>OSCListener</code>,
+ *	such as <code>OSCReceiver</code>, <code>OSCServer</code> or <code>OSCClient</code>:
+ *	<pre>
+ *      final OSCDispatcher disp = new OSCDispatcher();
+ *      disp.addHandler( "/n_go", new OSCListener() {
+ *          public void messageReceived( OSCMessage msg, SocketAddress sender, long time ) {
+ *              ...
+ *          }
+ *      });
+ *      rcv.addOSCListener( disp );
+ *	</pre>
+ *	The methods are kept in a trie over the address segments. A message
+ *	without pattern characters is dispatched with a single hash lookup of
+ *	its address, a pattern is matched segment by segment, so the
+ *	dispatch cost does not depend on the number of registered methods
+ *	unless a pattern segment has to be compared with many siblings.
+ *	<p>
+ *	<b>Synchronization:</b> handlers may be added and removed at any time,
+ *	also from within a handler. Dispatching does not lock.
+ *
+ *	@see	OSCReceiver#addOSCListener( OSCListener )
+ */
+public class OSCDispatcher
+		implements OSCListener {
+
+	private static final OSCListener[]	NO_HANDLERS	= new OSCListener[0];
+
+	private final Node					root		= new Node(null, null);
+	private final Map<String, Node>		methods		= new ConcurrentHashMap<String, Node>();	// key = full address
+	private final Object				sync		= new Object();
+
+	/**
+	 *	Creates a new dispatcher without any handlers.
+	 */
+	public OSCDispatcher() { /* empty */ }
+
+	/**
+	 *	Registers a handler for an OSC method. A method may have several
+	 *	handlers, which are invoked in the order in which they were added.
+	 *
+	 *	@param	address	the method's address, such as <code>&quot;/synth/freq&quot;</code>.
+	 *					It must begin with a slash and must not contain empty segments
+	 *					or any of the characters <code>' ', '#', '*', ',', '?', '[', ']', '{', '}'</code>
+	 *	@param	handler	the listener to invoke for messages matching the method
+	 *
+	 *	@throws	IllegalArgumentException	if the address is not a valid method address
+	 */
+	public void addHandler(String address, OSCListener handler) {
+		checkAddress(address);
+		if (handler == null) throw new IllegalArgumentException("null");
+		synchronized (sync) {
+			Node n = methods.get(address);
+			if (n == null) {
+				n = root;
+				int off = 1;
+				while (true) {
+					int end = address.indexOf('/', off);
+					if (end < 0) end = address.length();
+					final String seg = address.substring(off, end);
+					Node child = n.children.get(seg);
+					if (child == null) {
+						child = new Node(n, seg);
+						n.children.put(seg, child);
+					}
+					n = child;
+					if (end == address.length()) break;
+					off = end + 1;
+				}
+				methods.put(address, n);
+			}
+			n.handlers = CopyOnWrite.add(n.handlers, handler);
+		}
+	}
+
+	/**
+	 *	Unregisters a handler from an OSC method.
+	 *
+	 *	@param	address	the method's address
+	 *	@param	handler	the listener to remove. If it was added several times,
+	 *					only the first registration is removed
+	 */
+	public void removeHandler(String address, OSCListener handler) {
+		synchronized (sync) {
+			final Node n = methods.get(address);
+			if (n == null) return;
+			final OSCListener[] newArr = CopyOnWrite.remove(n.handlers, handler);
+			if (newArr.length > 0) {
+				n.handlers = newArr;
+			} else if (n.handlers.length > 0) {	// the last handler was removed
+				n.handlers = NO_HANDLERS;
+				methods.remove(address);
+				prune(n);
+			}
+		}
+	}
+
+	/**
+	 *	Unregisters all handlers.
+	 */
+	public void removeAllHandlers() {
+		synchronized (sync) {
+			methods.clear();
+			root.children.clear();
+		}
+	}
+
+	/**
+	 *	Queries the number of OSC methods which have at least one handler.
+	 *
+	 *	@return	the number of registered addresses
+	 */
+	public int getMethodCount() {
+		return methods.size();
+	}
+
+	/**
+	 *	Invokes the handlers of all methods matching the message's address.
+	 *
+	 *	@param	msg		the message to dispatch
+	 *	@param	sender	who sent the message
+	 *	@param	time	the time tag, or <code>OSCBundle.NOW</code>
+	 *	@return	the number of methods which matched
+	 */
+	public int dispatch(OSCMessage msg, SocketAddress sender, long time) {
+		final String address = msg.getName();
+		final Node n = methods.get(address);
+		if (n != null) {
+			invoke(n.handlers, msg, sender, time);
+			return 1;
+		}
+		if ((address.length() < 2) || (address.charAt(0) != '/') || !isPattern(address, 1, address.length())) return 0;
+		return dispatchPattern(root, address, 1, msg, sender, time);
+	}
+
+	/**
+	 *	Dispatches the message. This method is called by the receiver
+	 *	the dispatcher is registered with.
+	 *
+	 *	@see	#dispatch( OSCMessage, SocketAddress, long )
+	 */
+	public void messageReceived(OSCMessage msg, SocketAddress sender, long time) {
+		dispatch(msg, sender, time);
+	}
+
+	/**
+	 *	Tests whether a part of an OSC address pattern matches a string,
+	 *	according to the OSC 1.0 pattern syntax.
+	 *
+	 *	@param	pattern	the pattern
+	 *	@param	name	the string to test, for example an address segment
+	 *	@return	<code>true</code> if the pattern matches the whole string
+	 */
+	public static boolean matches(String pattern, String name) {
+		return matches(pattern, 0, pattern.length(), name, 0, name.length());
+	}
+
+	private int dispatchPattern(Node n, String address, int off, OSCMessage msg, SocketAddress sender, long time) {
+		int end = address.indexOf('/', off);
+		final boolean last = end < 0;
+		if (last) end = address.length();
+
+		if (!isPattern(address, off, end)) {
+			final Node child = n.children.get(address.substring(off, end));
+			if (child == null) return 0;
+			if (last) return invoke(child.handlers, msg, sender, time);
+			return dispatchPattern(child, address, end + 1, msg, sender, time);
+		}
+
+		int numMatched = 0;
+		for (Node child : n.children.values()) {
+			final String seg = child.segment;
+			if (matches(address, off, end, seg, 0, seg.length())) {
+				numMatched += last ? invoke(child.handlers, msg, sender, time) :
+					dispatchPattern(child, address, end + 1, msg, sender, time);
+			}
+		}
+		return numMatched;
+	}
+
+	private static int invoke(OSCListener[] handlers, OSCMessage msg, SocketAddress sender, long time) {
+		for (OSCListener handler : handlers) {
+			handler.messageReceived(msg, sender, time);
+		}
+		return handlers.length > 0 ? 1 : 0;
+	}
+
+	// removes nodes which have neither handlers nor children
+	private void prune(Node n) {
+		while ((n.parent != null) && (n.handlers.length == 0) && n.children.isEmpty()) {
+			n.parent.children.remove(n.segment);
+			n = n.parent;
+		}
+	}
+
+	private static void checkAddress(String address) {
+		final int len = address.length();
+		if ((len < 2) || (address.charAt(0) != '/') || (address.charAt(len - 1) == '/')) {
+			throw new IllegalArgumentException(address);
+		}
+		for (int i = 1; i < len; i++) {
+			switch (address.charAt(i)) {
+				case '/':
+					if (address.charAt(i - 1) == '/') throw new IllegalArgumentException(address);
+					break;
+				case ' ': case '#': case '*': case ',': case '?': case '[': case ']': case '{': case '}':
+					throw new IllegalArgumentException(address);
+				default:
+					break;
+			}
+		}
+	}
+
+	private static boolean isPattern(String s, int off, int end) {
+		for (int i = off; i < end; i++) {
+			switch (s.charAt(i)) {
+				case '*': case '?': case '[': case '{':
+					return true;
+				default:
+					break;
+			}
+		}
+		return false;
+	}
+
+	private static boolean matches(String p, int pi, int pe, String s, int si, int se) {
+		while (pi < pe) {
+			final char c = p.charAt(pi);
+			switch (c) {
+				case '*':
+					do {
+						pi++;
+					} while ((pi < pe) && (p.charAt(pi) == '*'));
+					if (pi == pe) return true;
+					for (int i = si; i <= se; i++) {
+						if (matches(p, pi, pe, s, i, se)) return true;
+					}
+					return false;
+
+				case '?':
+					if (si == se) return false;
+					pi++;
+					si++;
+					break;
+
+				case '[': {
+					if (si == se) return false;
+					final int end = p.indexOf(']', pi + 1);
+					if ((end < 0) || (end >= pe)) return false;
+					final char ch = s.charAt(si);
+					final boolean negate = (pi + 1 < end) && (p.charAt(pi + 1) == '!');
+					boolean found = false;
+					for (int i = negate ? pi + 2 : pi + 1; i < end; i++) {
+						final char lo = p.charAt(i);
+						if ((i + 2 < end) && (p.charAt(i + 1) == '-')) {    // a '-' at the end is literal
+							final char hi = p.charAt(i + 2);
+							if ((ch >= Math.min(lo, hi)) && (ch <= Math.max(lo, hi))) found = true;
+							i += 2;
+						} else if (ch == lo) {
+							found = true;
+						}
+					}
+					if (found == negate) return false;
+					pi = end + 1;
+					si++;
+					break;
+				}
+
+				case '{': {
+					final int end = p.indexOf('}', pi + 1);
+					if ((end < 0) || (end >= pe)) return false;
+					int i = pi + 1;
+					while (true) {
+						int comma = p.indexOf(',', i);
+						if ((comma < 0) || (comma > end)) comma = end;
+						final int len = comma - i;
+						if ((si + len <= se) && s.regionMatches(si, p, i, len) &&
+							matches(p, end + 1, pe, s, si + len, se)) return true;
+						if (comma == end) return false;
+						i = comma + 1;
+					}
+				}
+
+				default:
+					if ((si == se) || (s.charAt(si) != c)) return false;
+					pi++;
+					si++;
+					break;
+			}
+		}
+		return si == se;
+	}
+
+	private static final class Node {
+		final Node					parent;
+		final String				segment;
+		final Map<String, Node>		children	= new ConcurrentHashMap<String, Node>(4);
+		volatile OSCListener[]		handlers	= NO_HANDLERS;
+
+		Node(Node parent, String segment) {
+			this.parent		= parent;
+			this.segment	= segment;
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ *  OSCFrameDecoder.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+
+/*
+ *	Splits a TCP stream into OSC packets. The decoder is fed whatever
+ *	a read returned and keeps an incomplete packet until the next
+ *	chunk arrives, so one read can yield any number of packets.
+ *	Packets lying completely within a chunk are passed on as slices
+ *	of the chunk; only packets spanning several chunks are assembled
+ *	in a buffer from the pool. A packet exceeding the maximum size is
+ *	skipped, which keeps the stream in sync.
+ *
+ *	For TCP, each packet is preceded by its size as a four byte
+ *	integer; a negative size cannot be recovered from. For SLIP (see
+ *	OSCSlip), packets are delimited by END bytes.
+ *
+ *	A decoder belongs to a single connection and is not thread safe.
+ */
+abstract class OSCFrameDecoder {
+	interface Handler {
+		/**
+		 *	Called for each complete packet.
+		 *
+		 *	@param	b	the packet, from position zero to the limit. The
+		 *				buffer is only valid during the call
+		 */
+		void frameDecoded(ByteBuffer b);
+	}
+
+	protected int maxSize;
+
+	protected OSCFrameDecoder(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 *	Creates a decoder for the framing of a stream protocol.
+	 *
+	 *	@param	protocol	<code>TCP</code> or <code>TCP_SLIP</code>
+	 *	@param	maxSize		the maximum packet size in bytes
+	 */
+	static OSCFrameDecoder newUsing(String protocol, int maxSize) {
+		return protocol.equals(OSCChannel.TCP_SLIP) ? new Slip(maxSize) : new SizePrefixed(maxSize);
+	}
+
+	void setMaxSize(int size) {
+		maxSize = size;
+	}
+
+	/**
+	 *	Consumes a chunk of the stream.
+	 *
+	 *	@param	chunk	the bytes read, from position to limit. The
+	 *					position is advanced to the limit
+	 *	@param	h		receives the complete packets
+	 *	@return	the number of packets passed to the handler
+	 *
+	 *	@throws	OSCException	if the stream is corrupt and cannot be continued
+	 */
+	abstract int decode(ByteBuffer chunk, Handler h) throws OSCException;
+
+	/**
+	 *	Discards an incomplete packet and returns its buffer to the pool.
+	 */
+	abstract void reset();
+
+	protected static void logOversized(int size) {
+		NetUtil.log(Level.WARNING, "", new OSCException(OSCException.RECEIVE, String.valueOf(size)));
+	}
+
+	private static final class SizePrefixed
+			extends OSCFrameDecoder {
+
+		private final ByteBuffer	header	= ByteBuffer.allocate(4);	// an incomplete size header
+		private ByteBuffer			body	= null;	// an incomplete packet
+		private int					skip	= 0;	// remaining bytes of an oversized packet
+
+		SizePrefixed(int maxSize) {
+			super(maxSize);
+		}
+
+		int decode(ByteBuffer chunk, Handler h)
+				throws OSCException {
+			int num = 0;
+			while (chunk.hasRemaining()) {
+				if (skip > 0) {
+					final int n = Math.min(skip, chunk.remaining());
+					chunk.position(chunk.position() + n);
+					skip -= n;
+					continue;
+				}
+				if (body != null) {
+					final int lim = chunk.limit();
+					chunk.limit(chunk.position() + Math.min(body.remaining(), chunk.remaining()));
+					body.put(chunk);
+					chunk.limit(lim);
+					if (body.hasRemaining()) break;
+					final ByteBuffer b = body;
+					body = null;
+					b.flip();
+					try {
+						h.frameDecoded(b);
+					} finally {
+						OSCBufferPool.getDefaultPool().release(b);
+					}
+					num++;
+					continue;
+				}
+
+				final int size;
+				if ((header.position() == 0) && (chunk.remaining() >= 4)) {
+					size = chunk.getInt();
+				} else {
+					while (header.hasRemaining() && chunk.hasRemaining()) {
+						header.put(chunk.get());
+					}
+					if (header.hasRemaining()) break;
+					size = header.getInt(0);
+					header.clear();
+				}
+				if (size < 0) throw new OSCException(OSCException.RECEIVE, String.valueOf(size));
+				if (size > maxSize) {
+					skip = size;
+					logOversized(size);
+					continue;
+				}
+				if (size <= chunk.remaining()) {
+					final int lim = chunk.limit();
+					final int end = chunk.position() + size;
+					chunk.limit(end);
+					final ByteBuffer b = chunk.slice();
+					chunk.limit(lim);
+					chunk.position(end);
+					h.frameDecoded(b);
+					num++;
+				} else {
+					body = OSCBufferPool.getDefaultPool().acquire(size);
+					body.limit(size);
+				}
+			}
+			return num;
+		}
+
+		void reset() {
+			OSCBufferPool.getDefaultPool().release(body);
+			body = null;
+			header.clear();
+			skip = 0;
+		}
+	}
+
+	private static final class Slip
+			extends OSCFrameDecoder {
+
+		private ByteBuffer	body		= null;		// the unescaped bytes of an incomplete packet
+		private boolean		escaped		= false;	// the previous chunk ended with ESC
+		private boolean		discard		= false;	// skip to the next END
+
+		Slip(int maxSize) {
+			super(maxSize);
+		}
+
+		int decode(ByteBuffer chunk, Handler h) {
+			final int lim = chunk.limit();
+			int num = 0;
+			int pos = chunk.position();
+			while (pos < lim) {
+				if (escaped) {
+					escaped = false;
+					final byte v = chunk.get(pos++);
+					if (v == OSCSlip.ESC_END) {
+						append(OSCSlip.END);
+					} else if (v == OSCSlip.ESC_ESC) {
+						append(OSCSlip.ESC);
+					} else if (!discard) {	// protocol violation, drop the packet
+						discard = true;
+						if (body != null) body.clear();
+						NetUtil.log(Level.WARNING, "", new OSCException(OSCException.RECEIVE, Integer.toHexString(v & 0xFF)));
+					}
+					continue;
+				}
+				final int idx = OSCSlip.indexOfSpecial(chunk, pos, lim);
+				if ((idx < lim) && (chunk.get(idx) == OSCSlip.END) && !discard && ((body == null) || (body.position() == 0))) {
+					// the packet lies within the chunk and contains no escapes
+					final int size = idx - pos;
+					if (size > maxSize) {
+						logOversized(size);
+					} else if (size > 0) {	// empty frames separate packets
+						chunk.limit(idx);
+						chunk.position(pos);
+						final ByteBuffer b = chunk.slice();
+						chunk.limit(lim);
+						h.frameDecoded(b);
+						num++;
+					}
+					pos = idx + 1;
+					continue;
+				}
+				append(chunk, pos, idx, lim);
+				if (idx == lim) break;
+				pos = idx + 1;
+				if (chunk.get(idx) == OSCSlip.ESC) {
+					escaped = true;
+				} else if (discard) {
+					discard = false;
+					if (body != null) body.clear();
+				} else if ((body != null) && (body.position() > 0)) {
+					body.flip();
+					try {
+						h.frameDecoded(body);
+					} finally {
+						body.clear();
+					}
+					num++;
+				}
+			}
+			chunk.position(lim);
+			return num;
+		}
+
+		private void append(ByteBuffer chunk, int off, int end, int lim) {
+			if (discard || (off == end) || !ensureCapacity(end - off)) return;
+			chunk.limit(end);
+			chunk.position(off);
+			body.put(chunk);
+			chunk.limit(lim);
+		}
+
+		private void append(byte v) {
+			if (discard || !ensureCapacity(1)) return;
+			body.put(v);
+		}
+
+		// grows the body up to the maximum size, otherwise discards the packet
+		private boolean ensureCapacity(int n) {
+			final int size = (body == null) ? n : body.position() + n;
+			if (size > maxSize) {
+				logOversized(size);
+				if (body != null) body.clear();
+				discard = true;
+				return false;
+			}
+			if ((body == null) || (size > body.capacity())) {
+				final OSCBufferPool pool	= OSCBufferPool.getDefaultPool();
+				final ByteBuffer oldBuf		= body;
+				body = pool.acquire(Math.min(maxSize, Math.max(size, (oldBuf == null) ? 0 : oldBuf.capacity() << 1)));
+				if (oldBuf != null) {
+					oldBuf.flip();
+					body.put(oldBuf);
+					pool.release(oldBuf);
+				}
+			}
+			return true;
+		}
+
+		void reset() {
+			OSCBufferPool.getDefaultPool().release(body);
+			body	= null;
+			escaped	= false;
+			discard	= false;
+		}
+	}
+}
@@ -79,8 +79,13 @@ import java.nio.ByteBuffer;
 public class OSCMessage
 		extends OSCPacket {
 
-	private Object[]	args;
-	private String		name;
+	private volatile Object[]	args;
+	private String				name;
+
+	// lazily decoded arguments (see OSCPacketCodec.setLazyDecoding)
+	private OSCPacketCodec		lazyCodec;
+	private byte[]				lazyRaw;
+	private final int			numArgs;
 	
 	/**
 	 *	Shorthand to pass to the constructor
@@ -102,8 +107,9 @@ public class OSCMessage
 	public OSCMessage(String name) {
 		super();
 
-		this.name = name;
-		this.args = NO_ARGS;
+		this.name		= name;
+		this.args		= NO_ARGS;
+		this.numArgs	= 0;
 	}
 
 	/**
@@ -114,17 +120,49 @@ public class OSCMessage
 	 *  @param  args	array of arguments which are simply
 	 *					assembled. Supported types are <code>Integer</code>,
 	 *					<code>Long</code>, <code>Float</code>, <code>Double</code>,
-	 *					<code>String</code>, furthermore <code>byte[]</code> and <code>OSCPacket</code> (both of which
+	 *					<code>String</code>, furthermore <code>byte[]</code>, <code>ByteBuffer</code> and <code>OSCPacket</code> (all of which
 	 *					are written as a blob). Note that in a future version of NetUtil, special codecs
 	 *					will allow customization of the way classes are encoded.
+	 *					<code>null</code> is treated as an empty array.
 	 */
 	public OSCMessage(String name, Object[] args) {
 		super();
 
-		this.name = name;
-		this.args = args;
+		this.name		= name;
+		this.args		= (args == null) ? NO_ARGS : args;	// null marks lazily decoded arguments
+		this.numArgs	= this.args.length;
+	}
+
+	/*
+	 *	Creates a message whose arguments are decoded
+	 *	on first access.
+	 *
+	 *	@param	raw		the message's bytes, beginning at the
+	 *					comma of the type tag string
+	 */
+	OSCMessage(String name, OSCPacketCodec c, byte[] raw, int numArgs) {
+		super();
+
+		this.name		= name;
+		this.lazyCodec	= c;
+		this.lazyRaw	= raw;
+		this.numArgs	= numArgs;
 	}
 	
+	/*
+	 *	Replaces the blobs decoded as slices of the receive buffer
+	 *	(see OSCPacketCodec.MODE_READ_BLOB_AS_BUFFER) by copies, so that a
+	 *	received message can be kept after the buffer has been reused. Lazily
+	 *	decoded arguments refer to the message's own bytes and are left alone.
+	 */
+	void copyBlobs() {
+		final Object[] a = args;
+		if (a == null) return;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] instanceof ByteBuffer) a[i] = OSCPacketCodec.copyBlob((ByteBuffer) a[i]);
+		}
+	}
+
 	/**
 	 *  Returns the OSC command of this message
 	 *
@@ -142,7 +180,7 @@ public class OSCMessage
 	 */
 	public int getArgCount()
 	{
-		return args.length;
+		return numArgs;
 	}
 	
 	/**
@@ -162,12 +200,32 @@ public class OSCMessage
 	 *				e.g. for [ "/n_go", 1001, 0, -1, -1, 0 ], requesting index
 	 *				0 would return <code>new Integer( 1001 )</code>.
 	 *
+	 *	@throws	IllegalStateException	if the message was decoded lazily
+	 *									and its arguments are malformed
+	 *
 	 *	@see	#getArgCount()
 	 *	@see	#decodeMessage( String, ByteBuffer )
 	 *	@see	Number#intValue()
+	 *	@see	OSCPacketCodec#setLazyDecoding( boolean )
 	 */
 	public Object getArg(int index) {
-		return args[index];
+		final Object[] a = args;
+		return (a != null ? a : decodeLazyArgs())[index];
+	}
+
+	private synchronized Object[] decodeLazyArgs() {
+		if (args == null) {
+			try {
+				args = lazyCodec.decodeLazyArgs(lazyRaw);
+			} catch (IOException e1) {
+				throw new IllegalStateException(e1);
+			} catch (RuntimeException e2) {	// BufferUnderflowException, IllegalArgumentException
+				throw new IllegalStateException(e2);
+			}
+			lazyCodec	= null;
+			lazyRaw		= null;
+		}
+		return args;
 	}
 
 	/**
@@ -0,0 +1,161 @@
+/*
+ *  OSCMessageTemplate.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ *	A pre-encoded OSC message whose numeric arguments can be
+ *	replaced in place. Templates are created by a codec's
+ *	<code>compile</code> method. The address, type tags and padding are
+ *	encoded only once, and each argument has a fixed offset in the
+ *	template's buffer. Sending a template therefore requires neither
+ *	encoding nor size calculation:
+ *	<pre>
+ *      final OSCMessageTemplate t = c.compile( new OSCMessage( "/n_set",
+ *          new Object[] { new Integer( 1001 ), "freq", new Float( 0f )}));
+ *      ...
+ *      t.setFloat( 2, freq );
+ *      trns.send( t.getBuffer(), addr );
+ *	</pre>
+ *	Only arguments of type <code>'i'</code>, <code>'f'</code>, <code>'h'</code>
+ *	and <code>'d'</code> can be replaced. Strings and blobs are fixed, as
+ *	their size determines the offsets of the successive arguments.
+ *	<p>
+ *	<b>Synchronization:</b> templates are not thread safe.
+ *
+ *	@see	OSCPacketCodec#compile( OSCMessage )
+ *	@see	OSCTransmitter#send( ByteBuffer, java.net.SocketAddress )
+ */
+public class OSCMessageTemplate {
+	private final String		name;
+	private final ByteBuffer	b;
+	private final byte[]		tags;
+	private final int[]			argOff;
+
+	OSCMessageTemplate(String name, ByteBuffer b, byte[] tags, int[] argOff) {
+		this.name	= name;
+		this.b		= b;
+		this.tags	= tags;
+		this.argOff	= argOff;
+	}
+
+	/**
+	 *	Returns the OSC command of the template's message
+	 *
+	 *	@return	the message's command, such as "/n_set"
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 *	Returns the number of arguments of the template's message.
+	 *
+	 *	@return	the number of typed arguments
+	 */
+	public int getArgCount() {
+		return tags.length;
+	}
+
+	/**
+	 *	Returns the type tag of an argument, for example
+	 *	<code>'i'</code> for a 32-bit integer.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the argument's type tag
+	 *
+	 *	@throws	IndexOutOfBoundsException	if the index is invalid
+	 */
+	public byte getTypeTag(int index) {
+		return tags[index];
+	}
+
+	/**
+	 *	Returns the size of the encoded message in bytes
+	 *
+	 *	@return	the message size
+	 */
+	public int getSize() {
+		return b.capacity();
+	}
+
+	/**
+	 *	Replaces an argument of type <code>'i'</code>.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@param	value	the new value
+	 *
+	 *	@throws	IllegalArgumentException	if the argument is of a different type
+	 */
+	public void setInt(int index, int value) {
+		b.putInt(offset(index, (byte) 0x69), value);
+	}
+
+	/**
+	 *	Replaces an argument of type <code>'f'</code>.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@param	value	the new value
+	 *
+	 *	@throws	IllegalArgumentException	if the argument is of a different type
+	 */
+	public void setFloat(int index, float value) {
+		b.putFloat(offset(index, (byte) 0x66), value);
+	}
+
+	/**
+	 *	Replaces an argument of type <code>'h'</code>.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@param	value	the new value
+	 *
+	 *	@throws	IllegalArgumentException	if the argument is of a different type
+	 */
+	public void setLong(int index, long value) {
+		b.putLong(offset(index, (byte) 0x68), value);
+	}
+
+	/**
+	 *	Replaces an argument of type <code>'d'</code>.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@param	value	the new value
+	 *
+	 *	@throws	IllegalArgumentException	if the argument is of a different type
+	 */
+	public void setDouble(int index, double value) {
+		b.putDouble(offset(index, (byte) 0x64), value);
+	}
+
+	/**
+	 *	Returns the buffer containing the encoded message,
+	 *	ready to be sent. Each call returns the same buffer,
+	 *	with its position reset to zero and its limit
+	 *	set to the message size.
+	 *
+	 *	@return	the encoded message
+	 */
+	public ByteBuffer getBuffer() {
+		b.clear();
+		return b;
+	}
+
+	private int offset(int index, byte tag) {
+		if (tags[index] != tag) {
+			throw new IllegalArgumentException(NetUtil.getResourceString("errOSCTypeTag") + " : " + (char) tags[index]);
+		}
+		return argOff[index];
+	}
+}
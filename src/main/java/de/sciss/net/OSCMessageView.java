@@ -0,0 +1,506 @@
+/*
+ *  OSCMessageView.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ *	A reusable, read-only cursor over an encoded OSC message. Unlike
+ *	<code>OSCPacketCodec.decode</code>, wrapping a message does not create
+ *	an <code>OSCMessage</code>, an argument array, boxed numbers or
+ *	strings. Arguments are read directly from the underlying buffer
+ *	when one of the getter methods is called.
+ *	<p>
+ *	A view is typically obtained by registering an
+ *	<code>OSCMessageViewListener</code> with an <code>OSCReceiver</code>,
+ *	in which case the view wraps the receiver's buffer and is only valid for
+ *	the duration of the <code>messageReceived</code> call. It can also be
+ *	used stand-alone:
+ *	<pre>
+ *      final OSCMessageView view = new OSCMessageView();
+ *      ...
+ *      view.wrap( buf );  // buf position and limit delimit the message
+ *      if( view.addressEquals( "/n_set" )) {
+ *          final int nodeID = view.getInt( 0 );
+ *          ...
+ *      }
+ *	</pre>
+ *	The buffers returned by <code>getAddressBytes</code> and <code>getBlob</code>
+ *	are internal read-only views which are reused by successive calls,
+ *	so their contents must be consumed or copied before the next call.
+ *	<p>
+ *	<b>Synchronization:</b> views are not thread safe.
+ *
+ *	@see	OSCMessageViewListener
+ *	@see	OSCReceiver#addMessageViewListener( OSCMessageViewListener )
+ */
+public class OSCMessageView {
+	private final OSCPacketCodec	c;
+
+	private ByteBuffer				b			= null;
+	private ByteBuffer				addrView	= null;
+	private ByteBuffer				blobView	= null;
+	private ByteBuffer				strView		= null;
+	private int						start;
+	private int						limit;
+	private int						addrLen;
+	private int						tagOff;
+	private int						numArgs;
+
+	// lazily computed absolute argument offsets
+	private int[]					argOff		= new int[16];
+	private int						numScanned;
+	private int						nextOff;
+
+	private CharsetDecoder			decoder		= null;
+	private String					decoderCharsetName;
+
+	/**
+	 *	Creates a new view which uses the default codec for
+	 *	string decoding and custom type tags.
+	 *
+	 *	@see	OSCPacketCodec#getDefaultCodec()
+	 */
+	public OSCMessageView() {
+		this(OSCPacketCodec.getDefaultCodec());
+	}
+
+	/**
+	 *	Creates a new view which uses a given codec for
+	 *	string decoding and for skipping arguments with
+	 *	custom type tags.
+	 *
+	 *	@param	c	the codec to use
+	 */
+	public OSCMessageView(OSCPacketCodec c) {
+		this.c = c;
+	}
+
+	/**
+	 *	Queries the codec used for string decoding
+	 *	and custom type tags.
+	 *
+	 *	@return	the view's codec
+	 */
+	public OSCPacketCodec getCodec() {
+		return c;
+	}
+
+	/**
+	 *	Points this view to the message contained in the given
+	 *	buffer between its position and limit. The buffer's
+	 *	position and limit are not altered, and the buffer must not be
+	 *	modified as long as the view is used.
+	 *
+	 *	@param	b	the buffer containing an encoded OSC message (not a bundle)
+	 *	@return		this view
+	 *
+	 *	@throws	OSCException	if the message is not properly formatted
+	 */
+	public OSCMessageView wrap(ByteBuffer b)
+			throws OSCException {
+		wrap(b, b.position(), b.limit());
+		return this;
+	}
+
+	void wrap(ByteBuffer b, int off, int lim)
+			throws OSCException {
+		if (this.b != b) {
+			this.b		= b;
+			addrView	= b.asReadOnlyBuffer();
+			blobView	= b.asReadOnlyBuffer();
+			strView		= b.asReadOnlyBuffer();
+		}
+		start		= off;
+		limit		= lim;
+		numScanned	= 0;
+
+		int i = off;
+		while ((i < lim) && (b.get(i) != 0)) i++;
+		if (i == lim) throw new OSCException(OSCException.FORMAT, null);
+		addrLen	= i - off;
+		tagOff	= off + ((addrLen + 4) & ~3);
+		if ((tagOff >= lim) || (b.get(tagOff) != 0x2C)) throw new OSCException(OSCException.FORMAT, null);
+		i = tagOff + 1;
+		while ((i < lim) && (b.get(i) != 0)) i++;
+		if (i == lim) throw new OSCException(OSCException.FORMAT, null);
+		numArgs	= i - tagOff - 1;
+		nextOff	= tagOff + ((numArgs + 5) & ~3);
+	}
+
+	/**
+	 *	Returns the length of the message's address (command)
+	 *	in bytes, excluding the terminating zero and padding.
+	 *
+	 *	@return	the address length in bytes
+	 */
+	public int getAddressLength() {
+		return addrLen;
+	}
+
+	/**
+	 *	Returns the raw bytes of the message's address (command),
+	 *	excluding the terminating zero. The returned buffer is
+	 *	a read-only view whose position and limit delimit the address.
+	 *	It is reused by successive calls to this method.
+	 *
+	 *	@return	a view of the address bytes
+	 */
+	public ByteBuffer getAddressBytes() {
+		addrView.limit(start + addrLen).position(start);
+		return addrView;
+	}
+
+	/**
+	 *	Compares the message's address (command) with a given sequence of
+	 *	(ASCII) characters, without creating any objects.
+	 *
+	 *	@param	address	the address to compare, e.g. <code>"/n_set"</code>
+	 *	@return	<code>true</code> if the address matches
+	 */
+	public boolean addressEquals(CharSequence address) {
+		if (address.length() != addrLen) return false;
+		for (int i = 0, j = start; i < addrLen; i++, j++) {
+			if (address.charAt(i) != (char) (b.get(j) & 0xFF)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 *	Decodes the message's address (command) into a new string.
+	 *	Note that this creates a new object. Use <code>addressEquals</code>
+	 *	or <code>getAddressBytes</code> where possible.
+	 *
+	 *	@return	the message's address
+	 */
+	public String getAddress() {
+		final char[] chars = new char[addrLen];
+		for (int i = 0, j = start; i < addrLen; i++, j++) {
+			chars[i] = (char) (b.get(j) & 0xFF);
+		}
+		return new String(chars);
+	}
+
+	/**
+	 *	Returns the number of arguments of the message.
+	 *
+	 *	@return	the number of typed arguments
+	 */
+	public int getArgCount() {
+		return numArgs;
+	}
+
+	/**
+	 *	Returns the type tag of an argument, for example
+	 *	<code>'i'</code> for a 32-bit integer.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the argument's type tag
+	 *
+	 *	@throws	IndexOutOfBoundsException	if the index is invalid
+	 */
+	public byte getTypeTag(int index) {
+		if ((index < 0) || (index >= numArgs)) throw new IndexOutOfBoundsException(String.valueOf(index));
+		return b.get(tagOff + 1 + index);
+	}
+
+	/**
+	 *	Reads a numeric argument as an <code>int</code>. Arguments
+	 *	of type <code>'h'</code>, <code>'f'</code> and <code>'d'</code>
+	 *	are converted.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the argument's value
+	 *	@throws	OSCException	if the argument is not numeric
+	 */
+	public int getInt(int index)
+			throws OSCException {
+		final byte typ	= getTypeTag(index);
+		final int  off	= argOffset(index);
+		switch (typ) {
+			case 0x69:	return b.getInt(off);					// 'i'
+			case 0x66:	return (int) b.getFloat(off);			// 'f'
+			case 0x68:	return (int) b.getLong(off);			// 'h'
+			case 0x64:	return (int) b.getDouble(off);			// 'd'
+			default:	throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		}
+	}
+
+	/**
+	 *	Reads a numeric argument as a <code>long</code>. Arguments
+	 *	of type <code>'i'</code>, <code>'f'</code> and <code>'d'</code>
+	 *	are converted.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the argument's value
+	 *	@throws	OSCException	if the argument is not numeric
+	 */
+	public long getLong(int index)
+			throws OSCException {
+		final byte typ	= getTypeTag(index);
+		final int  off	= argOffset(index);
+		switch (typ) {
+			case 0x69:	return b.getInt(off);					// 'i'
+			case 0x66:	return (long) b.getFloat(off);			// 'f'
+			case 0x68:	return b.getLong(off);					// 'h'
+			case 0x64:	return (long) b.getDouble(off);			// 'd'
+			default:	throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		}
+	}
+
+	/**
+	 *	Reads a numeric argument as a <code>float</code>. Arguments
+	 *	of type <code>'i'</code>, <code>'h'</code> and <code>'d'</code>
+	 *	are converted.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the argument's value
+	 *	@throws	OSCException	if the argument is not numeric
+	 */
+	public float getFloat(int index)
+			throws OSCException {
+		final byte typ	= getTypeTag(index);
+		final int  off	= argOffset(index);
+		switch (typ) {
+			case 0x66:	return b.getFloat(off);					// 'f'
+			case 0x69:	return b.getInt(off);					// 'i'
+			case 0x68:	return b.getLong(off);					// 'h'
+			case 0x64:	return (float) b.getDouble(off);		// 'd'
+			default:	throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		}
+	}
+
+	/**
+	 *	Reads a numeric argument as a <code>double</code>. Arguments
+	 *	of type <code>'i'</code>, <code>'h'</code> and <code>'f'</code>
+	 *	are converted.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the argument's value
+	 *	@throws	OSCException	if the argument is not numeric
+	 */
+	public double getDouble(int index)
+			throws OSCException {
+		final byte typ	= getTypeTag(index);
+		final int  off	= argOffset(index);
+		switch (typ) {
+			case 0x64:	return b.getDouble(off);				// 'd'
+			case 0x66:	return b.getFloat(off);					// 'f'
+			case 0x69:	return b.getInt(off);					// 'i'
+			case 0x68:	return b.getLong(off);					// 'h'
+			default:	throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		}
+	}
+
+	/**
+	 *	Decodes a string (<code>'s'</code>) or symbol (<code>'S'</code>)
+	 *	argument into a given character buffer, beginning at the buffer's
+	 *	current position, using the codec's charset. Pure ASCII strings
+	 *	are copied directly.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@param	dst		the buffer to write the characters to
+	 *	@return	the number of characters written
+	 *
+	 *	@throws	OSCException				if the argument is not a string
+	 *	@throws	BufferOverflowException		if <code>dst</code> has not enough space
+	 */
+	public int getStringInto(int index, CharBuffer dst)
+			throws OSCException {
+		final byte typ = getTypeTag(index);
+		if ((typ != 0x73) && (typ != 0x53)) throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		final int off	= argOffset(index);
+		final int end	= stringEnd(off);
+		final int pos	= dst.position();
+		for (int i = off; i < end; i++) {
+			final byte ch = b.get(i);
+			if (ch < 0) {    // not ASCII, use the charset
+				dst.position(pos);
+				decodeString(off, end, dst);
+				return dst.position() - pos;
+			}
+			dst.put((char) ch);
+		}
+		return end - off;
+	}
+
+	/**
+	 *	Decodes a string (<code>'s'</code>) or symbol (<code>'S'</code>)
+	 *	argument. Note that this creates a new object. Use
+	 *	<code>getStringInto</code> to avoid this.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the decoded string
+	 *
+	 *	@throws	OSCException	if the argument is not a string
+	 */
+	public String getString(int index)
+			throws OSCException {
+		final byte typ = getTypeTag(index);
+		if ((typ != 0x73) && (typ != 0x53)) throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		final int off	= argOffset(index);
+		final int end	= stringEnd(off);
+		final CharBuffer cb = CharBuffer.allocate(end - off);
+		decodeString(off, end, cb);
+		cb.flip();
+		return cb.toString();
+	}
+
+	/**
+	 *	Returns a blob (<code>'b'</code>) argument's data as
+	 *	a read-only view of the underlying buffer, whose position and limit
+	 *	delimit the blob data. No bytes are copied. The view is
+	 *	reused by successive calls to this method.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	a view of the blob data
+	 *
+	 *	@throws	OSCException	if the argument is not a blob
+	 */
+	public ByteBuffer getBlob(int index)
+			throws OSCException {
+		final byte typ = getTypeTag(index);
+		if (typ != 0x62) throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		final int off = argOffset(index);
+		blobView.limit(off + 4 + blobSize(off)).position(off + 4);
+		return blobView;
+	}
+
+	/**
+	 *	Decodes an argument into a regular Java object, using the view's codec.
+	 *	Note that this creates new objects.
+	 *
+	 *	@param	index	the argument index, beginning at zero
+	 *	@return	the decoded argument, as it would be returned by
+	 *			<code>OSCMessage.getArg</code>
+	 *
+	 *	@throws	IOException	if the codec does not support the argument's type tag
+	 */
+	public Object getArg(int index)
+			throws IOException {
+		final byte typ				= getTypeTag(index);
+		final OSCPacketCodec.Atom a	= c.getDecoder(typ);
+		if (a == null) throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		final ByteBuffer bb = b.duplicate();
+		bb.limit(limit).position(argOffset(index));
+		return a.decodeAtom(typ, bb);
+	}
+
+	int getArgOffset(int index)
+			throws OSCException {
+		if ((index < 0) || (index >= numArgs)) throw new IndexOutOfBoundsException(String.valueOf(index));
+		return argOffset(index);
+	}
+
+	private int argOffset(int index)
+			throws OSCException {
+		while (numScanned <= index) {
+			if (numScanned == argOff.length) {
+				final int[] newOff = new int[numScanned << 1];
+				System.arraycopy(argOff, 0, newOff, 0, numScanned);
+				argOff = newOff;
+			}
+			final int off = skipArg(b.get(tagOff + 1 + numScanned), nextOff);
+			if (off > limit) throw new OSCException(OSCException.FORMAT, null);	// truncated argument
+			argOff[numScanned] = nextOff;
+			nextOff = off;
+			numScanned++;
+		}
+		return argOff[index];
+	}
+
+	private int skipArg(byte typ, int off)
+			throws OSCException {
+		switch (typ) {
+			case 0x69:	// 'i'
+			case 0x66:	// 'f'
+			case 0x63:	// 'c'
+			case 0x72:	// 'r'
+			case 0x6D:	// 'm'
+				return off + 4;
+			case 0x68:	// 'h'
+			case 0x64:	// 'd'
+			case 0x74:	// 't'
+				return off + 8;
+			case 0x54:	// 'T'
+			case 0x46:	// 'F'
+			case 0x4E:	// 'N'
+			case 0x49:	// 'I'
+			case 0x5B:	// '['
+			case 0x5D:	// ']'
+				return off;
+			case 0x73:	// 's'
+			case 0x53:	// 'S'
+				return (stringEnd(off) + 4) & ~3;
+			case 0x62:	// 'b'
+				return off + ((blobSize(off) + 7) & ~3);
+			default:
+				return skipCustomArg(typ, off);
+		}
+	}
+
+	// returns the index of the terminating zero of a string
+	private int stringEnd(int off)
+			throws OSCException {
+		int i = off;
+		while ((i < limit) && (b.get(i) != 0)) i++;
+		if (i == limit) throw new OSCException(OSCException.FORMAT, null);
+		return i;
+	}
+
+	private int blobSize(int off)
+			throws OSCException {
+		if (off + 4 > limit) throw new OSCException(OSCException.FORMAT, null);
+		final int size = b.getInt(off);
+		if ((size < 0) || (size > limit - off - 4)) throw new OSCException(OSCException.FORMAT, String.valueOf(size));
+		return size;
+	}
+
+	// custom atoms registered with the codec have to be decoded to find their size
+	private int skipCustomArg(byte typ, int off)
+			throws OSCException {
+		final OSCPacketCodec.Atom a = c.getDecoder(typ);
+		if (a == null) throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+		final ByteBuffer bb = b.duplicate();
+		bb.limit(limit).position(off);
+		try {
+			a.decodeAtom(typ, bb);
+		} catch (IOException e1) {
+			throw new OSCException(OSCException.FORMAT, e1.getLocalizedMessage());
+		}
+		return bb.position();
+	}
+
+	private void decodeString(int off, int end, CharBuffer dst) {
+		final String charsetName = c.charsetName;
+		if ((decoder == null) || !decoderCharsetName.equals(charsetName)) {
+			decoder = Charset.forName(charsetName).newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			decoderCharsetName = charsetName;
+		}
+		strView.limit(end).position(off);
+		decoder.reset();
+		CoderResult res = decoder.decode(strView, dst, true);
+		if (!res.isOverflow()) res = decoder.flush(dst);
+		if (res.isOverflow()) throw new BufferOverflowException();
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ *  OSCMessageViewListener.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.net.SocketAddress;
+
+/**
+ *  A variant of <code>OSCListener</code> that receives
+ *  incoming messages as an <code>OSCMessageView</code>
+ *  instead of a decoded <code>OSCMessage</code>. If an
+ *  <code>OSCReceiver</code> has only listeners of this kind,
+ *  incoming packets are not decoded at all, so no objects are
+ *  created per message.
+ *	<p>
+ *	The view wraps the receiver's buffer and is reused for the
+ *	next message, therefore it must not be stored or used
+ *	outside the <code>messageReceived</code> call.
+ *
+ *  @see	OSCReceiver#addMessageViewListener( OSCMessageViewListener )
+ */
+public interface OSCMessageViewListener {
+	/**
+	 *  Called when a new OSC message
+	 *  arrived at the receiving local socket.
+	 *
+	 *  @param  view    a view of the newly arrived message, valid only during this call
+     *  @param  sender  who sent the message
+	 *	@param	time	the time tag as returned by <code>OSCBundle.getTimeTag()</code>
+	 *					; or <code>OSCBundle.NOW</code> if no time tag was specified
+	 *					or the message is expected to be processed immediately
+	 */
+	public void messageReceived(OSCMessageView view, SocketAddress sender, long time);
+}
@@ -0,0 +1,312 @@
+/*
+ *  OSCMessageWriter.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ *	A reusable writer which encodes an OSC message argument by argument
+ *	directly into a <code>ByteBuffer</code>. Unlike <code>OSCMessage</code>,
+ *	no argument array and no boxed numbers are needed, and no encoder lookup
+ *	per argument is performed. The type tag string is written when the message
+ *	is finished.
+ *	<p>
+ *	Here is an example:
+ *	<pre>
+ *      final OSCMessageWriter w   = new OSCMessageWriter();
+ *      final ByteBuffer       buf = ByteBuffer.allocateDirect( 8192 );
+ *      ...
+ *      buf.clear();
+ *      w.wrap( buf ).address( "/n_set" ).addInt( 1001 ).addString( "freq" ).addFloat( 441f ).finish();
+ *      buf.flip();
+ *      trns.send( buf, addr );
+ *	</pre>
+ *	Space for the type tags is reserved when the address is written. The reservation
+ *	adapts to the number of arguments of the previous message, so when a writer is used
+ *	repeatedly for messages of the same shape, the arguments never have to be moved.
+ *	<p>
+ *	<b>Synchronization:</b> writers are not thread safe.
+ *
+ *	@see	OSCTransmitter#send( ByteBuffer, java.net.SocketAddress )
+ */
+public class OSCMessageWriter {
+	private final OSCPacketCodec	c;
+
+	private ByteBuffer				b			= null;
+	private boolean					open		= false;
+	private int						tagStart;
+	private int						bodyStart;
+	private int						tagReserve	= 8;	// comma, up to six tags, terminator
+	private int						numArgs;
+	private byte[]					tags		= new byte[16];
+
+	private CharsetEncoder			encoder		= null;
+	private String					encoderCharsetName;
+	private boolean					asciiCompatible;
+
+	/**
+	 *	Creates a new writer which uses the default codec's
+	 *	charset for string encoding.
+	 *
+	 *	@see	OSCPacketCodec#getDefaultCodec()
+	 */
+	public OSCMessageWriter() {
+		this(OSCPacketCodec.getDefaultCodec());
+	}
+
+	/**
+	 *	Creates a new writer which uses a given codec's
+	 *	charset for string encoding.
+	 *
+	 *	@param	c	the codec to use
+	 */
+	public OSCMessageWriter(OSCPacketCodec c) {
+		this.c = c;
+	}
+
+	/**
+	 *	Specifies the buffer into which successive messages are written.
+	 *
+	 *	@param	b	the buffer to write to
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter wrap(ByteBuffer b) {
+		this.b	= b;
+		open	= false;
+		return this;
+	}
+
+	/**
+	 *	Queries the buffer into which messages are written.
+	 *
+	 *	@return	the current buffer, or <code>null</code> if none was specified
+	 */
+	public ByteBuffer getBuffer() {
+		return b;
+	}
+
+	/**
+	 *	Begins a new message at the buffer's current position, writing
+	 *	the message's address (command). Characters must be ASCII.
+	 *
+	 *	@param	address	the OSC command, like "/n_set"
+	 *	@return		this writer
+	 *
+	 *	@throws	BufferOverflowException	if the buffer has not enough space
+	 */
+	public OSCMessageWriter address(CharSequence address) {
+		final int len = address.length();
+		for (int i = 0; i < len; i++) {
+			b.put((byte) address.charAt(i));
+		}
+		OSCPacketCodec.terminateAndPadToAlign(b);
+		tagStart	= b.position();
+		bodyStart	= tagStart + tagReserve;
+		b.position(bodyStart);
+		numArgs		= 0;
+		open		= true;
+		return this;
+	}
+
+	/**
+	 *	Appends a 32-bit integer argument (<code>'i'</code>).
+	 *
+	 *	@param	i	the value to write
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter addInt(int i) {
+		addTag((byte) 0x69);	// 'i'
+		b.putInt(i);
+		return this;
+	}
+
+	/**
+	 *	Appends a 32-bit floating point argument (<code>'f'</code>).
+	 *
+	 *	@param	f	the value to write
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter addFloat(float f) {
+		addTag((byte) 0x66);	// 'f'
+		b.putFloat(f);
+		return this;
+	}
+
+	/**
+	 *	Appends a 64-bit integer argument (<code>'h'</code>).
+	 *	Note that this type tag is not part of the strict OSC 1.0 specification.
+	 *
+	 *	@param	n	the value to write
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter addLong(long n) {
+		addTag((byte) 0x68);	// 'h'
+		b.putLong(n);
+		return this;
+	}
+
+	/**
+	 *	Appends a 64-bit floating point argument (<code>'d'</code>).
+	 *	Note that this type tag is not part of the strict OSC 1.0 specification.
+	 *
+	 *	@param	d	the value to write
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter addDouble(double d) {
+		addTag((byte) 0x64);	// 'd'
+		b.putDouble(d);
+		return this;
+	}
+
+	/**
+	 *	Appends a string argument (<code>'s'</code>), using the
+	 *	codec's charset. Pure ASCII strings are written directly
+	 *	if the charset is ASCII compatible.
+	 *
+	 *	@param	s	the string to write
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter addString(CharSequence s) {
+		addTag((byte) 0x73);	// 's'
+		checkEncoder();
+		final int pos = b.position();
+		final int len = s.length();
+		if (asciiCompatible) {
+			int i = 0;
+			while (i < len) {
+				final char ch = s.charAt(i);
+				if (ch >= 0x80) break;
+				b.put((byte) ch);
+				i++;
+			}
+			if (i == len) {
+				OSCPacketCodec.terminateAndPadToAlign(b);
+				return this;
+			}
+			b.position(pos);
+		}
+		encoder.reset();
+		final CharBuffer cb = CharBuffer.wrap(s);
+		CoderResult res = encoder.encode(cb, b, true);
+		if (!res.isOverflow()) res = encoder.flush(b);
+		if (res.isOverflow()) throw new BufferOverflowException();
+		OSCPacketCodec.terminateAndPadToAlign(b);
+		return this;
+	}
+
+	/**
+	 *	Appends a blob argument (<code>'b'</code>), consisting of the
+	 *	bytes between the given buffer's position and limit. The
+	 *	source buffer's position is not altered.
+	 *
+	 *	@param	blob	the buffer containing the blob data
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter addBlob(ByteBuffer blob) {
+		addTag((byte) 0x62);	// 'b'
+		final int pos = blob.position();
+		b.putInt(blob.remaining());
+		b.put(blob);
+		blob.position(pos);
+		OSCPacketCodec.padToAlign(b);
+		return this;
+	}
+
+	/**
+	 *	Appends a blob argument (<code>'b'</code>).
+	 *
+	 *	@param	blob	the blob data
+	 *	@return		this writer
+	 */
+	public OSCMessageWriter addBlob(byte[] blob) {
+		addTag((byte) 0x62);	// 'b'
+		b.putInt(blob.length);
+		b.put(blob);
+		OSCPacketCodec.padToAlign(b);
+		return this;
+	}
+
+	/**
+	 *	Completes the current message by writing its type tag string.
+	 *	When this method returns, the buffer's position is right after
+	 *	the end of the message.
+	 *
+	 *	@return	the position of the end of the message in the buffer
+	 *
+	 *	@throws	IllegalStateException	if no message was begun using <code>address</code>
+	 *	@throws	BufferOverflowException	if the buffer has not enough space
+	 */
+	public int finish() {
+		if (!open) throw new IllegalStateException();
+		open = false;
+
+		final int needed = (numArgs + 5) & ~3;	// comma + numArgs + zero + align
+		int end = b.position();
+		if (needed != tagReserve) {
+			final int delta = needed - tagReserve;
+			if (end + delta > b.limit()) throw new BufferOverflowException();
+			move(bodyStart, end, delta);
+			end += delta;
+			tagReserve = needed;
+		}
+		b.position(tagStart);
+		b.put((byte) 0x2C);		// ',' to announce type string
+		b.put(tags, 0, numArgs);
+		OSCPacketCodec.terminateAndPadToAlign(b);
+		b.position(end);
+		return end;
+	}
+
+	private void addTag(byte tag) {
+		if (!open) throw new IllegalStateException();
+		if (numArgs == tags.length) {
+			final byte[] newTags = new byte[numArgs << 1];
+			System.arraycopy(tags, 0, newTags, 0, numArgs);
+			tags = newTags;
+		}
+		tags[numArgs++] = tag;
+	}
+
+	// moves the bytes between start and stop by delta (which is a multiple of four)
+	private void move(int start, int stop, int delta) {
+		if (delta > 0) {
+			for (int i = stop - 4; i >= start; i -= 4) {
+				b.putInt(i + delta, b.getInt(i));
+			}
+		} else {
+			for (int i = start; i < stop; i += 4) {
+				b.putInt(i + delta, b.getInt(i));
+			}
+		}
+	}
+
+	private void checkEncoder() {
+		final String charsetName = c.charsetName;
+		if ((encoder == null) || !encoderCharsetName.equals(charsetName)) {
+			final Charset cs	= Charset.forName(charsetName);
+			encoder				= cs.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			encoderCharsetName	= charsetName;
+			final byte[] test	= "A".getBytes(cs);
+			asciiCompatible		= (test.length == 1) && (test[0] == 0x41);
+		}
+	}
+}
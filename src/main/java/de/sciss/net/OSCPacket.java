@@ -35,6 +35,23 @@ public abstract class OSCPacket {
 	 *  way they instantiate the class
 	 */
 	protected OSCPacket() { /* empty */ }
+
+	// the bytes of a packet decoded from a blob, which are
+	// forwarded instead of encoding the packet again
+	private byte[] encoded = null;
+
+	void setEncoded(byte[] b) {
+		encoded = b;
+	}
+
+	/*
+	 *	Returns the bytes the packet was decoded from, or
+	 *	<code>null</code> if the packet was not nested in a blob
+	 *	or has been modified since.
+	 */
+	byte[] getEncoded() {
+		return encoded;
+	}
 	
 	/**
 	 *  Calculates and returns
@@ -233,6 +250,8 @@ public abstract class OSCPacket {
 					printTextOn(stream, (OSCPacket) o, nestCount + 1);
 				} else if (o instanceof byte[]) {
 					stream.print(", DATA[" + ((byte[]) o).length + "]");
+				} else if (o instanceof ByteBuffer) {
+					stream.print(", DATA[" + ((ByteBuffer) o).remaining() + "]");
 				} else {
 					stream.print(", \"" + o.toString() + "\"");
 				}
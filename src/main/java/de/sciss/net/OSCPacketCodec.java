@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 /**
  *	A packet codec defines how the translation between Java objects
@@ -46,6 +47,10 @@ import java.nio.ByteBuffer;
  *	Last but not least, using the <code>putDecoder</code> and <code>putEncoder</code>
  *	methods, the codec can be extended to support additional Java classes or
  *	OSC typetags, without the need to subclass <code>OSCPacketCodec</code>.
+ *	<p>
+ *	Optionally, the codec keeps a bounded cache of decoded addresses
+ *	(see <code>setAddressCacheCapacity</code>), so that a recurring OSC
+ *	command does not allocate a new <code>String</code> each time it is received.
  */
 public class OSCPacketCodec {
 
@@ -65,11 +70,41 @@ public class OSCPacketCodec {
 	private static final int	MODE_WRITE_LONG_MASK		= 0x00C0;
 	public static final int		MODE_READ_SYMBOL_AS_STRING	= 0x0100;
 	public static final int		MODE_WRITE_PACKET_AS_BLOB	= 0x0200;
+	/**
+	 *	Support mode flag: blobs (<code>'b'</code>) are decoded into
+	 *	read-only <code>java.nio.ByteBuffer</code> slices of the decoded
+	 *	buffer instead of being copied into <code>byte[]</code>. A slice
+	 *	is only valid as long as the decoded buffer is not reused;
+	 *	a receiver reuses its buffer as soon as the listeners have returned.
+	 *	Listeners which keep a blob must call <code>copyBlob</code>. When
+	 *	arguments are decoded lazily, slices refer to the message's own copy
+	 *	of the raw bytes and remain valid. This flag can be combined
+	 *	with any of the other modes.
+	 *
+	 *	@see	#copyBlob( ByteBuffer )
+	 *	@see	#setLazyDecoding( boolean )
+	 */
+	public static final int		MODE_READ_BLOB_AS_BUFFER	= 0x0400;
+	/**
+	 *	Support mode flag: blobs (<code>'b'</code>) which contain a
+	 *	valid OSC message or bundle, such as those written in
+	 *	<code>MODE_WRITE_PACKET_AS_BLOB</code>, are decoded into an
+	 *	<code>OSCPacket</code>. Other blobs are decoded as usual.
+	 *	A packet decoded this way keeps a copy of its bytes, and as long as it is not
+	 *	modified, encoding it (for example to forward it) writes these bytes
+	 *	unchanged instead of encoding the packet again. Together with
+	 *	lazy decoding, the arguments of the nested packet are only decoded
+	 *	when the containing message's argument is accessed. This flag can be
+	 *	combined with any of the other modes.
+	 *
+	 *	@see	#setLazyDecoding( boolean )
+	 */
+	public static final int		MODE_READ_PACKET_FROM_BLOB	= 0x0800;
 	
 	/**
 	 *	Support mode: coder only accepts <code>java.lang.Integer</code>,
 	 *	<code>java.lang.Float</code>, <code>java.lang.String</code>,
-	 *	and <code>byte[]</code>.
+	 *	and <code>byte[]</code> (or <code>java.nio.ByteBuffer</code>).
 	 *	Decoder only accepts <code>'i'</code>, <code>'f'</code>,
 	 *	<code>'s'</code>, and <code>'b'</code>. Note that <code>byte[]</code>
 	 *	is used to represents blobs (<code>'b'</code>).
@@ -101,13 +136,40 @@ public class OSCPacketCodec {
 	 *	and <code>de.sciss.net.OSCPacket</code> is encoded as a blob <code>'b'</code>.
 	 */
 	public static final int		MODE_FAT_V1					= MODE_READ_DOUBLE | MODE_READ_LONG | MODE_WRITE_DOUBLE | MODE_WRITE_LONG | MODE_READ_SYMBOL_AS_STRING | MODE_WRITE_PACKET_AS_BLOB;
+
+	/**
+	 *	The largest capacity of the address cache.
+	 *
+	 *	@see	#setAddressCacheCapacity( int )
+	 */
+	public static final int		MAX_ADDRESS_CACHE_CAPACITY	= 1 << 20;
 	
 	private final Atom[]		atomDecoders				= new Atom[ 128 ];
-//	private final Map			atomEncoders				= new HashMap();
-	private final Class[]		atomEncoderC				= new Class[ 128 ];
-	private final Atom[]		atomEncoderA				= new Atom[ 128 ];
+	private volatile EncoderTable	atomEncoders			= new EncoderTable(8);
+	// fast path for the most common argument classes
+	private volatile Atom		integerEncoder				= null;
+	private volatile Atom		floatEncoder				= null;
+	private volatile Atom		stringEncoder				= null;
 	
 	protected String			charsetName;
+	private Charset				charset;
+	// whether string sizes can be calculated without encoding
+	private static final int	CHARSET_OTHER				= 0;
+	private static final int	CHARSET_UTF8				= 1;
+	private static final int	CHARSET_SINGLE_BYTE			= 2;
+	private int					charsetKind;
+	// chars below this limit are encoded as a single byte of the same value
+	private int					simpleCharLimit;
+
+	private static final ThreadLocal<char[]> charScratch	= new ThreadLocal<char[]>() {
+		protected char[] initialValue() {
+			return new char[64];
+		}
+	};
+
+	private volatile AddressCache	addrCache				= null;
+
+	private volatile boolean	lazyArgs					= false;
 
 	private static final byte[] bndlIdentifier  			= { 0x23, 0x62, 0x75, 0x6E, 0x64, 0x6C, 0x65, 0x00 }; // "#bundle" (4-aligned)
 
@@ -151,25 +213,21 @@ public class OSCPacketCodec {
 	 */
 	public OSCPacketCodec(int mode, String charset) {
 		Atom a;
-		int  encIdx = 0;
 		
 		// OSC version 1.0 strict type tag support
 		a = new IntegerAtom();
 		atomDecoders[a.getTypeTag(null)] = a;
-		atomEncoderC[encIdx] = Integer.class;
-		atomEncoderA[encIdx++] = a;
+		putEncoder(Integer.class, a);
 		a = new FloatAtom();
 		atomDecoders[a.getTypeTag(null)] = a;
-		atomEncoderC[encIdx] = Float.class;
-		atomEncoderA[encIdx++] = a;
+		putEncoder(Float.class, a);
 		a = new StringAtom();
 		atomDecoders[a.getTypeTag(null)] = a;
-		atomEncoderC[encIdx] = String.class;
-		atomEncoderA[encIdx++] = a;
+		putEncoder(String.class, a);
 		a = new BlobAtom();
 		atomDecoders[a.getTypeTag(null)] = a;
-		atomEncoderC[encIdx] = byte[].class;
-		atomEncoderA[encIdx++] = a;
+		putEncoder(byte[].class, a);
+		putEncoder(ByteBuffer.class, new BufferBlobAtom());
 
 		setStringCharsetCodec(charset);
 		setSupportMode(mode);
@@ -205,7 +263,133 @@ public class OSCPacketCodec {
 	 *	@see	java.nio.charset.Charset
 	 */
 	public void setStringCharsetCodec(String charsetName) {
-		this.charsetName = charsetName;
+		final Charset cs		= Charset.forName(charsetName);
+		final String csName		= cs.name();
+		if (csName.equals("UTF-8")) {
+			charsetKind			= CHARSET_UTF8;
+			simpleCharLimit		= 0x80;
+		} else if (csName.equals("US-ASCII")) {
+			charsetKind			= CHARSET_SINGLE_BYTE;
+			simpleCharLimit		= 0x80;
+		} else if (csName.equals("ISO-8859-1")) {
+			charsetKind			= CHARSET_SINGLE_BYTE;
+			simpleCharLimit		= 0x100;
+		} else {
+			charsetKind			= CHARSET_OTHER;
+			simpleCharLimit		= 0;
+		}
+		this.charset		= cs;
+		this.charsetName	= charsetName;
+	}
+
+	/**
+	 *	Enables or disables the cache of decoded addresses. When enabled,
+	 *	received OSC commands are looked up by their raw bytes, and
+	 *	a recurring command yields the same <code>String</code> instance
+	 *	without any allocation. The cache is bounded; when two
+	 *	addresses compete for the same slot, the more recent one wins.
+	 *	By default, the cache is disabled.
+	 *
+	 *	@param	capacity	the maximum number of cached addresses, which
+	 *						is rounded up to the next power of two, or
+	 *						<code>0</code> to disable the cache
+	 *
+	 *	@throws	IllegalArgumentException	if the capacity is negative or
+	 *										greater than <code>MAX_ADDRESS_CACHE_CAPACITY</code>
+	 */
+	public void setAddressCacheCapacity(int capacity) {
+		if ((capacity < 0) || (capacity > MAX_ADDRESS_CACHE_CAPACITY)) throw new IllegalArgumentException(String.valueOf(capacity));
+		if (capacity == 0) {
+			addrCache = null;
+		} else {
+			int n = 1;
+			while (n < capacity) n <<= 1;
+			addrCache = new AddressCache(n);
+		}
+	}
+
+	/**
+	 *	Queries the capacity of the cache of decoded addresses.
+	 *
+	 *	@return	the number of cache slots, or <code>0</code> if
+	 *			the cache is disabled
+	 */
+	public int getAddressCacheCapacity() {
+		final AddressCache ac = addrCache;
+		return ac == null ? 0 : ac.entries.length;
+	}
+
+	/**
+	 *	Queries the number of decoded addresses which were found in
+	 *	the address cache. The counters are not synchronized, so that
+	 *	they add no contention when several threads decode with the same
+	 *	codec; with concurrent decoding, the count is approximate.
+	 *
+	 *	@return	the number of cache hits since the cache was enabled,
+	 *			or <code>0</code> if it is disabled
+	 */
+	public long getAddressCacheHits() {
+		final AddressCache ac = addrCache;
+		return ac == null ? 0L : ac.hits;
+	}
+
+	/**
+	 *	Queries the number of decoded addresses which were not found in
+	 *	the address cache and had to be allocated. With concurrent
+	 *	decoding, the count is approximate.
+	 *
+	 *	@return	the number of cache misses since the cache was enabled,
+	 *			or <code>0</code> if it is disabled
+	 */
+	public long getAddressCacheMisses() {
+		final AddressCache ac = addrCache;
+		return ac == null ? 0L : ac.misses;
+	}
+
+	/**
+	 *	Enables or disables the lazy decoding of message arguments.
+	 *	When enabled, a decoded message only copies the raw bytes of its
+	 *	type tags and arguments, and the arguments are decoded the first time
+	 *	<code>getArg</code> is called. This saves the decoding of messages
+	 *	which are dropped after looking at their name, in particular the copying
+	 *	of blobs. Since the raw bytes are copied, the message remains valid
+	 *	when the receive buffer is reused. Unsupported type tags are still
+	 *	detected while decoding the packet, but malformed arguments are only
+	 *	detected when the arguments are accessed. By default, arguments are
+	 *	decoded eagerly.
+	 *
+	 *	@param	onOff	<code>true</code> to decode arguments lazily
+	 *
+	 *	@see	OSCMessage#getArg( int )
+	 */
+	public void setLazyDecoding(boolean onOff) {
+		lazyArgs = onOff;
+	}
+
+	/**
+	 *	Queries whether message arguments are decoded lazily.
+	 *
+	 *	@return	<code>true</code> if arguments are decoded on first access
+	 */
+	public boolean isLazyDecoding() {
+		return lazyArgs;
+	}
+
+	/**
+	 *	Copies a blob decoded in <code>MODE_READ_BLOB_AS_BUFFER</code>, so
+	 *	that it can be kept after the receive buffer has been reused.
+	 *	The remaining bytes of the blob are copied; the blob's position
+	 *	is not changed.
+	 *
+	 *	@param	blob	the blob to copy
+	 *	@return	a read-only heap buffer containing a copy of the blob's data
+	 *
+	 *	@see	#MODE_READ_BLOB_AS_BUFFER
+	 */
+	public static ByteBuffer copyBlob(ByteBuffer blob) {
+		final ByteBuffer copy = ByteBuffer.allocate(blob.remaining());
+		copy.put(blob.duplicate()).flip();
+		return copy.asReadOnlyBuffer();
 	}
 
 	/**
@@ -223,6 +407,10 @@ public class OSCPacketCodec {
 	public void putDecoder(byte typeTag, Atom a) {
 		atomDecoders[typeTag] = a;
 	}
+
+	Atom getDecoder(byte typeTag) {
+		return typeTag < 0 ? null : atomDecoders[typeTag];
+	}
 	
 	/**
 	 * 	Registers an atomic encoder with the packet codec. This
@@ -234,19 +422,52 @@ public class OSCPacketCodec {
 	 *
 	 *	@see	OSCPacketCodec.Atom
 	 */
-	public void putEncoder(Class javaClass, Atom a) {
-		int encIdx = 0;
-		while ((atomEncoderC[encIdx] != javaClass) && (atomEncoderC[encIdx] != null)) encIdx++;
-		if (a != null) {
-			atomEncoderC[encIdx] = javaClass;
-			atomEncoderA[encIdx] = a;
-		} else if (atomEncoderC[encIdx] != null) {
-			int encIdx2;
-			encIdx2 = encIdx + 1;
-			while (atomEncoderC[encIdx2] != null) encIdx2++;
-			System.arraycopy(atomEncoderC, encIdx + 1, atomEncoderC, encIdx, encIdx2 - encIdx);
-			System.arraycopy(atomEncoderA, encIdx + 1, atomEncoderA, encIdx, encIdx2 - encIdx);
+	public synchronized void putEncoder(Class javaClass, Atom a) {
+		// copy-on-write, so that concurrent encoders always see a consistent table
+		final EncoderTable oldTable = atomEncoders;
+		final int size = oldTable.size + (a == null ? 0 : 1);
+		final EncoderTable newTable = new EncoderTable(size);
+		for (int i = 0; i < oldTable.keys.length; i++) {
+			final Class cl = oldTable.keys[i];
+			if ((cl != null) && (cl != javaClass)) newTable.put(cl, oldTable.values[i]);
+		}
+		if (a != null) newTable.put(javaClass, a);
+		atomEncoders = newTable;
+
+		if (javaClass == Integer.class) {
+			integerEncoder = a;
+		} else if (javaClass == Float.class) {
+			floatEncoder = a;
+		} else if (javaClass == String.class) {
+			stringEncoder = a;
+		}
+	}
+
+	/**
+	 *	Looks up the encoder for a given argument.
+	 *
+	 *	@throws	OSCException	if no encoder is registered for the argument's class
+	 */
+	private Atom getEncoder(Object o)
+			throws OSCException {
+		if (o == null) throw new OSCException(OSCException.JAVACLASS, "null");
+		final Class cl = o.getClass();
+		final Atom a;
+		if (cl == Integer.class) {
+			a = integerEncoder;
+		} else if (cl == Float.class) {
+			a = floatEncoder;
+		} else if (cl == String.class) {
+			a = stringEncoder;
+		} else {
+			a = atomEncoders.get(cl);
 		}
+		if ((a == null) && (o instanceof ByteBuffer)) {	// any heap, direct or mapped implementation
+			final Atom ab = atomEncoders.get(ByteBuffer.class);
+			if (ab != null) return ab;
+		}
+		if (a == null) throw new OSCException(OSCException.JAVACLASS, cl.getName());
+		return a;
 	}
 	
 	/**
@@ -328,8 +549,14 @@ public class OSCPacketCodec {
 			atomDecoders[0x53] = null;
 		}
 
+		a = ((mode & MODE_READ_BLOB_AS_BUFFER) != 0) ? new BufferBlobAtom() : new BlobAtom();
+		if ((mode & MODE_READ_PACKET_FROM_BLOB) != 0) {
+			a = new PacketAtom(a);
+		}
+		atomDecoders[0x62] = a;    // 'b' blob
+
 		if ((mode & MODE_WRITE_PACKET_AS_BLOB) != 0) {
-			a = new PacketAtom();
+			a = new PacketAtom(null);
 			putEncoder(OSCBundle	.class, a);
 			putEncoder(OSCMessage	.class, a);
 		} else {
@@ -367,7 +594,7 @@ public class OSCPacketCodec {
 	 */
 	public OSCPacket decode(ByteBuffer b)
 			throws IOException {
-		final String command = readString(b);
+		final String command = readAddress(b);
 		skipToAlign(b);
 
 		if (command.equals(OSCBundle.TAG)) {
@@ -394,13 +621,61 @@ public class OSCPacketCodec {
 	 */
 	public void encode(OSCPacket p, ByteBuffer b)
 			throws IOException {
-		if (p instanceof OSCBundle) {
+		final byte[] encoded = p.getEncoded();
+		if (encoded != null) {
+			b.put(encoded);
+		} else if (p instanceof OSCBundle) {
 			encodeBundle((OSCBundle) p, b);
 		} else {
 			encodeMessage((OSCMessage) p, b);
 		}
 	}
 
+	/**
+	 *	Encodes a packet into the provided <code>ByteBuffer</code>,
+	 *	beginning at the buffer's current position, and replaces the
+	 *	buffer by a larger one if the packet does not fit. This way, the
+	 *	size of the packet need not be calculated before encoding it.
+	 *	When the buffer is replaced, the new buffer's capacity
+	 *	is at least twice the old one's, it is direct if the old buffer
+	 *	was direct, and the contents of the old buffer before the
+	 *	start position are copied. Callers will typically keep the returned buffer
+	 *	for subsequent packets, so that growing happens only rarely.
+	 *
+	 *	@param	p			the packet to encode
+	 *	@param	b			the buffer to encode the packet into. Encoding
+	 *						may use the space up to the buffer's capacity.
+	 *	@param	maxCapacity	the maximum capacity of a replacement buffer
+	 *	@return	the buffer containing the encoded packet, either <code>b</code>
+	 *			or a larger buffer. Its position is right after the end
+	 *			of the packet.
+	 *
+	 *	@throws	IOException					in case some of the
+	 *										writing procedures failed.
+	 *	@throws	BufferOverflowException		if the packet does not fit into a
+	 *										buffer of <code>maxCapacity</code> bytes
+	 */
+	public ByteBuffer encodeGrowing(OSCPacket p, ByteBuffer b, int maxCapacity)
+			throws IOException {
+		final int start = b.position();
+		b.limit(b.capacity());
+		while (true) {
+			try {
+				encode(p, b);
+				return b;
+			} catch (BufferOverflowException e1) {
+				final int cap = b.capacity();
+				if (cap >= maxCapacity) throw e1;
+				final int newCap = (int) Math.min(maxCapacity, Math.max(64L, (long) cap << 1));
+				final ByteBuffer newBuf = b.isDirect() ? ByteBuffer.allocateDirect(newCap) : ByteBuffer.allocate(newCap);
+				b.limit(start);
+				b.position(0);
+				newBuf.put(b);
+				b = newBuf;
+			}
+		}
+	}
+
 	/**
 	 *  Calculates and returns
 	 *  the packet's size in bytes
@@ -414,13 +689,48 @@ public class OSCPacketCodec {
 	 */
 	public int getSize(OSCPacket p)
 			throws IOException {
-		if (p instanceof OSCBundle) {
+		final byte[] encoded = p.getEncoded();
+		if (encoded != null) {
+			return encoded.length;
+		} else if (p instanceof OSCBundle) {
 			return getBundleSize((OSCBundle) p);
 		} else {
 			return getMessageSize((OSCMessage) p);
 		}
 	}
 
+	/**
+	 *	Compiles a message into a template. The message is
+	 *	encoded once, and afterwards its numeric arguments
+	 *	can be replaced in place, without encoding the
+	 *	address and type tags again.
+	 *
+	 *	@param	msg	the message whose address and argument types
+	 *				define the template. the arguments are used as
+	 *				initial values
+	 *	@return	the newly created template
+	 *
+	 *	@throws IOException	if the message cannot be encoded
+	 *
+	 *	@see	OSCMessageTemplate
+	 */
+	public OSCMessageTemplate compile(OSCMessage msg)
+			throws IOException {
+		final ByteBuffer b = ByteBuffer.allocateDirect(getMessageSize(msg));
+		encodeMessage(msg, b);
+		b.flip();
+		final OSCMessageView v = new OSCMessageView(this);
+		v.wrap(b);
+		final int		numArgs	= v.getArgCount();
+		final byte[]	tags	= new byte[numArgs];
+		final int[]		argOff	= new int[numArgs];
+		for (int i = 0; i < numArgs; i++) {
+			tags[i]		= v.getTypeTag(i);
+			argOff[i]	= v.getArgOffset(i);
+		}
+		return new OSCMessageTemplate(msg.getName(), b, tags, argOff);
+	}
+
 	protected int getBundleSize(OSCBundle bndl)
 			throws IOException {
 		synchronized (bndl.collPackets) {
@@ -447,20 +757,10 @@ public class OSCPacketCodec {
 		final int	numArgs = msg.getArgCount();
 		int			result  = ((msg.getName().length() + 4) & ~3) + ((1+numArgs + 4) & ~3);
 		Object		o;
-		Class		cl;
-		int			j;
 
 		for (int i = 0; i < numArgs; i++) {
 			o 	= msg.getArg(i);
-			cl 	= o.getClass();
-			j 	= 0;
-			try {
-				while (atomEncoderC[j] != cl) j++;
-				result += atomEncoderA[j].getAtomSize(o);
-
-			} catch (NullPointerException e1) {
-				throw new OSCException(OSCException.JAVACLASS, cl.getName());
-			}
+			result += getEncoder(o).getAtomSize(o);
 		}
 		
 		return result;
@@ -513,13 +813,49 @@ public class OSCPacketCodec {
 	protected OSCMessage decodeMessage(String command, ByteBuffer b)
 			throws IOException {
 
+		final int pos0 = b.position();
+		if (b.get() != 0x2C) throw new OSCException(OSCException.FORMAT, null);
+		if (!lazyArgs) return new OSCMessage(command, decodeArgs(b));
+
+		final int pos1 = pos0 + 1;
+		final int numArgs;
+		while (b.get() != 0x00) ;
+		numArgs = b.position() - pos1 - 1;
+		for (int argIdx = 0; argIdx < numArgs; argIdx++) {
+			final byte typ = b.get(pos1 + argIdx);
+			if ((typ < 0) || (atomDecoders[typ] == null)) {
+				throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
+			}
+		}
+		// the copy begins at the 4-aligned comma, so that
+		// alignment is preserved when decoding the arguments later
+		final byte[] raw = new byte[b.limit() - pos0];
+		b.position(pos0);
+		b.get(raw);
+		return new OSCMessage(command, this, raw, numArgs);
+	}
+
+	/**
+	 *	Decodes the arguments of a lazily decoded message.
+	 *
+	 *	@param	raw	the message's bytes, beginning at the comma of the type tag string
+	 */
+	Object[] decodeLazyArgs(byte[] raw)
+			throws IOException {
+		final ByteBuffer b = ByteBuffer.wrap(raw);
+		b.get();	// comma
+		return decodeArgs(b);
+	}
+
+	private Object[] decodeArgs(ByteBuffer b)
+			throws IOException {
+
 		final Object[]		args;
 		final int			numArgs;
 		final ByteBuffer	b2;
 		final int			pos1;
 		byte				typ	= 0;
 
-		if (b.get() != 0x2C) throw new OSCException(OSCException.FORMAT, null);
 		b2 = b.slice();    // faster to slice than to reposition all the time!
 		pos1 = b.position();
 		while (b.get() != 0x00) ;
@@ -535,7 +871,7 @@ public class OSCPacketCodec {
 		} catch (NullPointerException e1) {
 			throw new OSCException(OSCException.TYPETAG, String.valueOf((char) typ));
 		}
-		return new OSCMessage(command, args);
+		return args;
 	}
 
 	protected void encodeBundle(OSCBundle bndl, ByteBuffer b)
@@ -546,13 +882,12 @@ public class OSCPacketCodec {
 
 		synchronized (bndl.collPackets) {
 			for (int i = 0; i < bndl.collPackets.size(); i++) {
-				b.mark();
-				b.putInt(0);            // calculate size later
+				// note: do not use mark/reset here, nested bundles would overwrite the mark
 				pos1 = b.position();
+				b.putInt(0);            // calculate size later
 				encode(bndl.collPackets.get(i), b);
 				pos2 = b.position();
-				b.reset();
-				b.putInt(pos2 - pos1).position(pos2);
+				b.putInt(pos1, pos2 - pos1 - 4);
 			}
 		}
 	}
@@ -577,10 +912,7 @@ public class OSCPacketCodec {
 
 		final int			numArgs = msg.getArgCount(); // args.length;
 		final ByteBuffer	b2;
-		int					j;
-		Object				o		= null;
-		Class				cl		= null;
-		Atom				a		= null;
+		Object				o;
 
 		b.put(msg.getName().getBytes());
 		terminateAndPadToAlign(b);
@@ -589,22 +921,28 @@ public class OSCPacketCodec {
 		// will be malfunctioning otherwise
 		b2 = b.slice();
 		b2.put((byte) 0x2C);        // ',' to announce type string
-		b.position(b.position() + ((numArgs + 5) & ~3));    // comma + numArgs + zero + align
-		try {
-			for (int i = 0; i < numArgs; i++) {
-				o = msg.getArg(i);
-				cl = o.getClass();
-				j = 0;
-				while (atomEncoderC[j] != cl) j++;
-				a = atomEncoderA[j];
-				a.encodeAtom(o, b2, b);
-			}
-		} catch (NullPointerException e1) {
-			throw new OSCException(OSCException.JAVACLASS, o == null ? "null" : cl == null ? "null" : cl.getName());
+		final int argPos = b.position() + ((numArgs + 5) & ~3);    // comma + numArgs + zero + align
+		if (argPos > b.limit()) throw new BufferOverflowException();
+		b.position(argPos);
+		for (int i = 0; i < numArgs; i++) {
+			o = msg.getArg(i);
+			getEncoder(o).encodeAtom(o, b2, b);
 		}
 		terminateAndPadToAlign(b2);
 	}
 
+	/**
+	 *	Checks whether the encoded packet at a given absolute offset
+	 *	is a bundle, without altering the buffer's position.
+	 */
+	static boolean isBundle(ByteBuffer b, int off, int lim) {
+		if (lim - off < bndlIdentifier.length) return false;
+		for (int i = 0; i < bndlIdentifier.length; i++) {
+			if (b.get(off + i) != bndlIdentifier[i]) return false;
+		}
+		return true;
+	}
+
 	/**
 	 *  Reads a null terminated string from
 	 *  the current buffer position
@@ -627,6 +965,80 @@ public class OSCPacketCodec {
 		return new String(bytes, 0, len - 1);
 	}
 
+	/**
+	 *  Reads the null terminated address (OSC command or bundle
+	 *  identifier) from the current buffer position, consulting
+	 *  the address cache if it is enabled.
+	 *
+	 *  @param  b   buffer to read from. position and limit must be
+	 *				set appropriately. new position will be right after
+	 *				the terminating zero byte when the method returns
+	 *
+	 *  @throws BufferUnderflowException	in case the string exceeds
+	 *										the provided buffer limit
+	 */
+	protected String readAddress(ByteBuffer b) {
+		final AddressCache ac = addrCache;
+		if (ac == null) return readString(b);
+
+		final int pos = b.position();
+		int h = 0;
+		byte c;
+		while ((c = b.get()) != 0) h = 31 * h + c;
+		final int len = b.position() - pos - 1;
+		final int idx = (h ^ (h >>> 16)) & (ac.entries.length - 1);
+		final AddressEntry e = ac.entries[idx];
+		if ((e != null) && (e.hash == h) && e.matches(b, pos, len)) {
+			ac.hits++;
+			return e.address;
+		}
+		ac.misses++;
+		final byte[] bytes = new byte[len];
+		for (int i = 0; i < len; i++) {
+			bytes[i] = b.get(pos + i);
+		}
+		final String address = new String(bytes);
+		ac.entries[idx] = new AddressEntry(bytes, h, address);
+		return address;
+	}
+
+	// the number of bytes of String.getBytes("UTF-8"),
+	// where unpaired surrogates are replaced by '?'
+	private static int getUTF8Length(String s) {
+		final int numChars = s.length();
+		int len = numChars;
+		for (int i = 0; i < numChars; i++) {
+			final char c = s.charAt(i);
+			if (c >= 0x80) {
+				if (c < 0x800) {
+					len++;
+				} else if (Character.isHighSurrogate(c)) {
+					if ((i + 1 < numChars) && Character.isLowSurrogate(s.charAt(i + 1))) {
+						len += 2;	// 4 bytes for 2 chars
+						i++;
+					}
+				} else if (!Character.isLowSurrogate(c)) {
+					len += 2;
+				}
+			}
+		}
+		return len;
+	}
+
+	// the number of bytes of String.getBytes() for a
+	// single byte charset, where surrogate pairs are replaced by one '?'
+	private static int getSingleByteLength(String s) {
+		final int numChars = s.length();
+		int len = numChars;
+		for (int i = 0; i < numChars - 1; i++) {
+			if (Character.isHighSurrogate(s.charAt(i)) && Character.isLowSurrogate(s.charAt(i + 1))) {
+				len--;
+				i++;
+			}
+		}
+		return len;
+	}
+
 	/**
 	 *  Adds as many zero padding bytes as necessary to
 	 *  stop on a 4 byte alignment. if the buffer position
@@ -752,6 +1164,79 @@ public class OSCPacketCodec {
 		public abstract int getAtomSize(Object o) throws IOException;
 	}
 
+	// open addressing hash table keyed by class identity. instances
+	// are not modified after publication (see putEncoder)
+	private static final class EncoderTable {
+		final Class[]	keys;
+		final Atom[]	values;
+		int				size	= 0;
+
+		EncoderTable(int capacity) {
+			int n = 8;
+			while (n < (capacity << 1)) n <<= 1;
+			keys	= new Class[n];
+			values	= new Atom[n];
+		}
+
+		void put(Class cl, Atom a) {
+			final int mask = keys.length - 1;
+			int i = System.identityHashCode(cl) & mask;
+			while (keys[i] != null) {
+				if (keys[i] == cl) {
+					values[i] = a;
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			keys[i]		= cl;
+			values[i]	= a;
+			size++;
+		}
+
+		Atom get(Class cl) {
+			final int mask = keys.length - 1;
+			int i = System.identityHashCode(cl) & mask;
+			Class k;
+			while ((k = keys[i]) != null) {
+				if (k == cl) return values[i];
+				i = (i + 1) & mask;
+			}
+			return null;
+		}
+	}
+
+	// direct mapped; entries are immutable, so concurrent
+	// decoders may at worst miss an entry just written by another thread
+	private static final class AddressCache {
+		final AddressEntry[]	entries;
+		long					hits	= 0L;	// racy, see getAddressCacheHits
+		long					misses	= 0L;
+
+		AddressCache(int capacity) {
+			entries = new AddressEntry[capacity];
+		}
+	}
+
+	private static final class AddressEntry {
+		final byte[]	bytes;
+		final int		hash;
+		final String	address;
+
+		AddressEntry(byte[] bytes, int hash, String address) {
+			this.bytes		= bytes;
+			this.hash		= hash;
+			this.address	= address;
+		}
+
+		boolean matches(ByteBuffer b, int pos, int len) {
+			if (bytes.length != len) return false;
+			for (int i = 0; i < len; i++) {
+				if (bytes[i] != b.get(pos + i)) return false;
+			}
+			return true;
+		}
+	}
+
 	private class IntegerAtom
 			extends Atom {
 		protected IntegerAtom() { /* empty */ }
@@ -909,19 +1394,46 @@ public class OSCPacketCodec {
 
 		public Object decodeAtom(byte typeTag, ByteBuffer b)
 				throws IOException {
-			final int pos1 = b.position();
+			final int	pos	= b.position();
+			final int	lim	= b.limit();
+			int			i	= pos;
+			int			or	= 0;	// all bytes or'ed, to detect non-ASCII content
+			int			w;
+
+			// strings are zero padded to a multiple of four bytes,
+			// so we can look for the terminator word by word
+			while (true) {
+				if (i + 4 > lim) throw new BufferUnderflowException();
+				w = b.getInt(i);
+				if (((w - 0x01010101) & ~w & 0x80808080) != 0) break;	// word contains a zero byte
+				or |= w;
+				i += 4;
+			}
+			int len = i - pos;
+			for (int shift = 24; (shift >= 0) && (((w >>> shift) & 0xFF) != 0); shift -= 8) {
+				len++;
+			}
+			or |= w;	// bytes after the terminator are zero or ignored (only the high bit matters)
+
 			final String s;
-			final int pos2;
-			final byte[] bytes;
-			final int len;
-			while (b.get() != 0) ;
-			pos2 = b.position() - 1;
-			b.position(pos1);
-			len = pos2 - pos1;
-			bytes = new byte[len];
-			b.get(bytes, 0, len);
-			s = new String(bytes, charsetName);
-			b.position((pos2 + 4) & ~3);
+			if (b.hasArray()) {
+				s = new String(b.array(), b.arrayOffset() + pos, len, charset);
+			} else if ((simpleCharLimit == 0x100) || ((simpleCharLimit == 0x80) && ((or & 0x80808080) == 0))) {
+				char[] chars = charScratch.get();
+				if (chars.length < len) {
+					chars = new char[Math.max(len, chars.length << 1)];
+					charScratch.set(chars);
+				}
+				for (int j = 0; j < len; j++) {
+					chars[j] = (char) (b.get(pos + j) & 0xFF);
+				}
+				s = new String(chars, 0, len);
+			} else {
+				final byte[] bytes = new byte[len];
+				b.get(bytes, 0, len);
+				s = new String(bytes, charset);
+			}
+			b.position((pos + len + 4) & ~3);
 			return s;
 		}
 
@@ -929,10 +1441,27 @@ public class OSCPacketCodec {
 				throws IOException {
 			tb.put((byte) 0x73);                    // 's'
 			final String s = (String) o;            // cassting seems tp be faster tan toString()!
-			db.put(s.getBytes(charsetName));        // faster than using Charset or CharsetEncoder
+			if (!encodeSimple(s, db)) db.put(s.getBytes(charset));
 			terminateAndPadToAlign(db);
 		}
 
+		// writes the string directly if it only consists of simple chars
+		private boolean encodeSimple(String s, ByteBuffer db) {
+			final int limit = simpleCharLimit;
+			if (limit == 0) return false;
+			final int pos = db.position();
+			final int len = s.length();
+			for (int i = 0; i < len; i++) {
+				final char c = s.charAt(i);
+				if (c >= limit) {
+					db.position(pos);
+					return false;
+				}
+				db.put((byte) c);
+			}
+			return true;
+		}
+
 		public byte getTypeTag(Object o) {
 			return 0x73;    // 's'
 		}
@@ -940,7 +1469,19 @@ public class OSCPacketCodec {
 		public int getAtomSize(Object o)
 				throws IOException {
 			final String s = (String) o;
-			return ((s.getBytes(charsetName).length + 4) & ~3);
+			final int len;
+			switch (charsetKind) {
+				case CHARSET_UTF8:
+					len = getUTF8Length(s);
+					break;
+				case CHARSET_SINGLE_BYTE:
+					len = getSingleByteLength(s);
+					break;
+				default:
+					len = s.getBytes(charset).length;
+					break;
+			}
+			return ((len + 4) & ~3);
 		}
 	}
 
@@ -975,13 +1516,84 @@ public class OSCPacketCodec {
 		}
 	}
 
+	private class BufferBlobAtom
+			extends Atom {
+		protected BufferBlobAtom() { /* empty */ }
+
+		public Object decodeAtom(byte typeTag, ByteBuffer b)
+				throws IOException {
+			final int len = b.getInt();
+			final int pos = b.position();
+			if ((len < 0) || (len > b.remaining())) throw new BufferUnderflowException();
+			final ByteBuffer blob = b.asReadOnlyBuffer();
+			blob.limit(pos + len).position(pos);
+			b.position(pos + len);
+			skipToAlign(b);
+			return blob.slice();
+		}
+
+		public void encodeAtom(Object o, ByteBuffer tb, ByteBuffer db)
+				throws IOException {
+			final ByteBuffer blob = (ByteBuffer) o;
+			final int len = blob.remaining();
+			tb.put((byte) 0x62);    // 'b'
+			db.putInt(len);
+			if (blob.hasArray()) {
+				db.put(blob.array(), blob.arrayOffset() + blob.position(), len);
+			} else {
+				db.put(blob.duplicate());	// leaves the argument's position untouched
+			}
+			padToAlign(db);
+		}
+
+		public byte getTypeTag(Object o) {
+			return 0x62;    // 'b'
+		}
+
+		public int getAtomSize(Object o)
+				throws IOException {
+			return ((((ByteBuffer) o).remaining() + 7) & ~3);
+		}
+	}
+
 	private class PacketAtom
 			extends Atom {
-		protected PacketAtom() { /* empty */ }
+		private final Atom blobDecoder;
+
+		// blobDecoder: used for blobs which do not contain a packet
+		protected PacketAtom(Atom blobDecoder) {
+			this.blobDecoder = blobDecoder;
+		}
 
 		public Object decodeAtom(byte typeTag, ByteBuffer b)
 				throws IOException {
-			throw new IOException("Not supported");
+			final int pos = b.position();
+			final int len = b.getInt();
+			if ((len >= 8) && ((len & 3) == 0) && (len <= b.remaining())) {
+				final byte c = b.get(pos + 4);
+				if ((c == 0x2F) || (c == 0x23)) {    // '/' message or '#' bundle
+					final byte[] encoded = new byte[len];
+					b.get(encoded);
+					final OSCPacket p = decodeNested(encoded);
+					if (p != null) return p;
+				}
+			}
+			b.position(pos);
+			return blobDecoder.decodeAtom(typeTag, b);
+		}
+
+		private OSCPacket decodeNested(byte[] encoded) {
+			final ByteBuffer b = ByteBuffer.wrap(encoded);
+			try {
+				final OSCPacket p = decode(b);
+				if (b.hasRemaining()) return null;
+				p.setEncoded(encoded);
+				return p;
+			} catch (IOException e1) {
+				return null;
+			} catch (RuntimeException e2) {    // BufferUnderflowException, IllegalArgumentException
+				return null;
+			}
 		}
 
 		public void encodeAtom(Object o, ByteBuffer tb, ByteBuffer db)
@@ -989,6 +1601,7 @@ public class OSCPacketCodec {
 			tb.put((byte) 0x62);    // 'b'
 			final int pos = db.position();
 			final int pos2 = pos + 4;
+			if (pos2 > db.limit()) throw new BufferOverflowException();
 			db.position(pos2);
 			encode((OSCPacket) o, db); // XXX
 			db.putInt(pos, db.position() - pos2);
@@ -0,0 +1,162 @@
+/*
+ *  OSCPacketRing.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/*
+ *	A bounded queue of raw packets between a receiver's
+ *	listening thread (the single producer) and its
+ *	worker threads. All slots are allocated up front. Only
+ *	the slot bookkeeping is done under the lock, the packets
+ *	are copied into and decoded from the slots outside of it.
+ *	A slot is returned by the worker after the packet has
+ *	been dispatched, because decoded blobs may refer to it.
+ */
+final class OSCPacketRing {
+	final int						slotSize;
+	final int						policy;
+
+	private final ByteBuffer[]		slots;
+	private final SocketAddress[]	senders;
+	private final int[]				free;		// stack of free slots
+	private int						numFree;
+	private final int[]				queue;		// circular FIFO of filled slots
+	private int						head		= 0;
+	private int						numQueued	= 0;
+	private int						numWaiting	= 0;	// workers waiting in take()
+	private boolean					closed		= false;
+	private long					numDropped	= 0L;
+
+	OSCPacketRing(int capacity, int slotSize, int policy) {
+		this.slotSize	= slotSize;
+		this.policy		= policy;
+		slots			= new ByteBuffer[capacity];
+		senders			= new SocketAddress[capacity];
+		free			= new int[capacity];
+		queue			= new int[capacity];
+		for (int i = 0; i < capacity; i++) {
+			slots[i]	= ByteBuffer.allocate(slotSize);
+			free[i]		= i;
+		}
+		numFree			= capacity;
+	}
+
+	int getCapacity() {
+		return slots.length;
+	}
+
+	/**
+	 *	Copies a packet into the ring. Called by the producer only.
+	 *
+	 *	@param	b		the packet, from position to limit
+	 *	@param	sender	the packet's sender
+	 *	@return	<code>false</code> if the packet was dropped
+	 */
+	boolean put(ByteBuffer b, SocketAddress sender)
+			throws InterruptedException {
+		final int idx;
+		synchronized (this) {
+			if (closed) return false;
+			if (numFree > 0) {
+				idx = free[--numFree];
+			} else if ((policy == OSCReceiver.PIPELINE_DROP_OLDEST) && (numQueued > 0)) {
+				idx = queue[head];
+				head = (head + 1) % queue.length;
+				numQueued--;
+				numDropped++;
+			} else if (policy == OSCReceiver.PIPELINE_BLOCK) {
+				while ((numFree == 0) && !closed) wait();
+				if (closed) return false;
+				idx = free[--numFree];
+			} else {
+				numDropped++;
+				return false;
+			}
+		}
+		final ByteBuffer slot = slots[idx];
+		slot.clear();
+		slot.put(b);
+		slot.flip();
+		synchronized (this) {
+			senders[idx] = sender;
+			queue[(head + numQueued) % queue.length] = idx;
+			numQueued++;
+			if (numWaiting > 0) notify();
+		}
+		return true;
+	}
+
+	/**
+	 *	Waits for the next packet. Called by the workers.
+	 *
+	 *	@return	the slot index, or <code>-1</code> if the ring was closed
+	 */
+	synchronized int take()
+			throws InterruptedException {
+		while ((numQueued == 0) && !closed) {
+			numWaiting++;
+			try {
+				wait();
+			} finally {
+				numWaiting--;
+			}
+		}
+		if (closed) return -1;
+		final int idx = queue[head];
+		head = (head + 1) % queue.length;
+		numQueued--;
+		return idx;
+	}
+
+	ByteBuffer getSlot(int idx) {
+		return slots[idx];
+	}
+
+	synchronized SocketAddress getSender(int idx) {
+		return senders[idx];
+	}
+
+	synchronized void release(int idx) {
+		senders[idx] = null;
+		free[numFree++] = idx;
+		if (policy == OSCReceiver.PIPELINE_BLOCK) notifyAll();	// the producer might be waiting
+	}
+
+	/**
+	 *	Discards the queued packets and wakes up all threads.
+	 */
+	synchronized void close() {
+		closed = true;
+		while (numQueued > 0) {
+			free[numFree++] = queue[head];
+			head = (head + 1) % queue.length;
+			numQueued--;
+		}
+		notifyAll();
+	}
+
+	synchronized void open() {
+		closed = false;
+	}
+
+	synchronized int getDepth() {
+		return numQueued;
+	}
+
+	synchronized long getDropCount() {
+		return numDropped;
+	}
+}
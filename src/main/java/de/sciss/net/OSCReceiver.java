@@ -31,6 +31,7 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 
 /**
@@ -149,7 +150,44 @@ public abstract class OSCReceiver
 
     // TODO an explicit disconnect method might be useful (this is implicitly done when calling dispose)
 
-	private   final List<OSCListener>					collListeners   = new ArrayList<OSCListener>();
+	/**
+	 *	Pipeline policy: when the queue is full, the
+	 *	incoming packet is discarded.
+	 *
+	 *	@see	#setPipeline( int, int, int )
+	 */
+	public static final int				PIPELINE_DROP_NEWEST	= 0;
+	/**
+	 *	Pipeline policy: when the queue is full, the
+	 *	oldest packet waiting in the queue is discarded
+	 *	to make room for the incoming packet.
+	 *
+	 *	@see	#setPipeline( int, int, int )
+	 */
+	public static final int				PIPELINE_DROP_OLDEST	= 1;
+	/**
+	 *	Pipeline policy: when the queue is full, the
+	 *	listening thread waits until a worker has finished a packet.
+	 *	Nothing is lost, but the operating system may drop
+	 *	datagrams while the thread is waiting, or the TCP
+	 *	sender is slowed down.
+	 *
+	 *	@see	#setPipeline( int, int, int )
+	 */
+	public static final int				PIPELINE_BLOCK			= 2;
+	/**
+	 *	The maximum number of bundles held back by default
+	 *	when scheduling is on.
+	 *
+	 *	@see	#setScheduling( boolean, int )
+	 */
+	public static final int				DEFAULT_SCHEDULE_MAX_DEPTH	= 65536;
+
+	private   final Object								listenerSync	= new Object();
+	private   volatile OSCListener[]					listeners		= new OSCListener[0];				// copy-on-write
+	private   volatile OSCMessageViewListener[]			viewListeners	= new OSCMessageViewListener[0];	// copy-on-write
+	private   OSCReceiver								listenerOwner	= this;	// whose listeners are notified
+	private   OSCMessageView							view			= null;
 	protected final List<OSCConnectionListener>         connListeners   = new ArrayList<OSCConnectionListener>();
 	protected Thread					thread			= null;
 
@@ -169,6 +207,18 @@ public abstract class OSCReceiver
 	private OSCPacketCodec				c;
 	private final String				protocol;
 
+	private int							pipeCapacity	= 0;	// 0 = decode in the listening thread
+	private int							pipeWorkers		= 1;
+	private int							pipePolicy		= PIPELINE_BLOCK;
+	private volatile OSCPacketRing		ring			= null;
+	private Thread[]					workers			= null;
+
+	private volatile ThreadFactory		threadFactory	= null;
+
+	private boolean						schedOn			= false;
+	private volatile OSCBundleScheduler	scheduler		= null;
+	private Thread						schedThread		= null;
+
 	protected final InetSocketAddress	localAddress;
 	protected final boolean				revivable;
 
@@ -191,7 +241,7 @@ public abstract class OSCReceiver
 	 *	to be connected to one particular target, so <code>setTarget</code> is
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created receiver
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -217,7 +267,7 @@ public abstract class OSCReceiver
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created receiver
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -245,7 +295,7 @@ public abstract class OSCReceiver
 	 *	to be connected to one particular target, so <code>setTarget</code> is
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created receiver
 	 *
@@ -271,7 +321,7 @@ public abstract class OSCReceiver
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created receiver
 	 *
@@ -297,7 +347,7 @@ public abstract class OSCReceiver
 	 *	to be connected to one particular target, so <code>setTarget</code> is
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -329,7 +379,7 @@ public abstract class OSCReceiver
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -360,7 +410,7 @@ public abstract class OSCReceiver
 	 *	to be connected to one particular target, so <code>setTarget</code> is
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
-	 *	@param	protocol		the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol		the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
 	 *							an arbitrary free port is picked when the receiver is started. (you can find out
 	 *							the actual port in this case by calling <code>getLocalAddress()</code> after the
@@ -390,7 +440,7 @@ public abstract class OSCReceiver
 	 *	must be called prior to <code>connect</code> or <code>startListening</code>! 
 	 *
 	 *	@param	c				the codec to use
-	 *	@param	protocol		the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol		the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
 	 *							an arbitrary free port is picked when the receiver is started. (you can find out
 	 *							the actual port in this case by calling <code>getLocalAddress()</code> after the
@@ -406,14 +456,56 @@ public abstract class OSCReceiver
 		if (protocol.equals(UDP)) {
 			return new UDPOSCReceiver(c, localAddress);
 
-		} else if (protocol.equals(TCP)) {
-			return new TCPOSCReceiver(c, localAddress);
+		} else if (protocol.equals(TCP) || protocol.equals(TCP_SLIP)) {
+			return new TCPOSCReceiver(c, protocol, localAddress);
 
 		} else {
 			throw new IllegalArgumentException(NetUtil.getResourceString("errUnknownProtocol") + protocol);
 		}
 	}
 
+	/**
+	 *	Creates a new instance of a revivable <code>OSCReceiver</code>, using
+	 *	a specific codec and transport protocol and local socket address, which
+	 *	receives on several channels in parallel. For <B>UDP</B>, <code>numChannels</code>
+	 *	datagram channels are bound to the same port using the <code>SO_REUSEPORT</code>
+	 *	socket option, each with its own listening thread and buffer. All of them
+	 *	decode with the receiver's codec and notify the same listeners.
+	 *	<P>
+	 *	The operating system decides which channel receives a datagram. On Linux,
+	 *	this is determined by a hash of the sender's and receiver's addresses, so all
+	 *	datagrams of one sender socket arrive on the same channel and its messages are delivered
+	 *	in the order in which they were received, just like with a single channel (as usual, UDP
+	 *	itself does not guarantee any order). Messages of different senders are delivered
+	 *	concurrently from different threads, therefore listeners must be thread safe.
+	 *	Other platforms may not distribute datagrams across the channels at all, in
+	 *	which case the receiver behaves like a single channel receiver.
+	 *	<P>
+	 *	<code>SO_REUSEPORT</code> requires Java 9 or newer and a supporting platform,
+	 *	otherwise connecting the receiver fails with an <code>IOException</code>.
+	 *
+	 *	@param	c				the codec to use
+	 *	@param	protocol		the protocol to use. Multiple channels are only supported for <code>UDP</code>
+	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
+	 *							an arbitrary free port is picked when the receiver is started
+	 *	@param	numChannels		the number of channels and listening threads. For <code>1</code>,
+	 *							this is the same as <code>newUsing( c, protocol, localAddress )</code>
+	 *	
+	 *	@return					the newly created receiver
+	 *
+	 *	@throws	IOException					if a networking error occurs while creating the socket
+	 *	@throws	IllegalArgumentException	if an illegal protocol or number of channels is used
+	 */
+	public static OSCReceiver newUsing(OSCPacketCodec c, String protocol, InetSocketAddress localAddress, int numChannels)
+			throws IOException {
+		if (numChannels == 1) return newUsing(c, protocol, localAddress);
+		if (numChannels < 1) throw new IllegalArgumentException(String.valueOf(numChannels));
+		if (!protocol.equals(UDP)) {
+			throw new IllegalArgumentException(NetUtil.getResourceString("errUnknownProtocol") + protocol);
+		}
+		return new MultiUDPOSCReceiver(c, localAddress, numChannels);
+	}
+
 	/**
 	 *	Creates a new instance of a non-revivable <code>OSCReceiver</code>, using
 	 *	default codec and UDP transport on a given channel. The caller should ensure that
@@ -499,7 +591,31 @@ public abstract class OSCReceiver
 	 */
 	public static OSCReceiver newUsing(OSCPacketCodec c, SocketChannel sch)
 			throws IOException {
-		return new TCPOSCReceiver(c, sch);
+		return new TCPOSCReceiver(c, TCP, sch);
+	}
+
+	/**
+	 *	Creates a new instance of a non-revivable <code>OSCReceiver</code>, using
+	 *	a specific codec and stream protocol on a given channel. This is
+	 *	the same as <code>newUsing( c, sch )</code>, but allows to choose
+	 *	the framing of the packets.
+	 *
+	 *	@param	c			the codec to use
+	 *	@param	protocol	the protocol to use, either <code>TCP</code> or <code>TCP_SLIP</code>
+	 *	@param	sch			the <code>SocketChannel</code> to use as TCP socket.
+	 *	@return				the newly created receiver
+	 *
+	 *	@throws	IOException	if a networking error occurs while configuring the socket
+	 *	@throws	IllegalArgumentException	if an illegal protocol is used
+	 *
+	 *	@see	OSCChannel#TCP_SLIP
+	 */
+	public static OSCReceiver newUsing(OSCPacketCodec c, String protocol, SocketChannel sch)
+			throws IOException {
+		if (!(protocol.equals(TCP) || protocol.equals(TCP_SLIP))) {
+			throw new IllegalArgumentException(NetUtil.getResourceString("errUnknownProtocol") + protocol);
+		}
+		return new TCPOSCReceiver(c, protocol, sch);
 	}
 
 	public String getProtocol()
@@ -550,9 +666,8 @@ public abstract class OSCReceiver
 	 *  @param  listener	the listener to register
 	 */
 	public void addOSCListener(OSCListener listener) {
-		synchronized (collListeners) {
-			if (collListeners.contains(listener)) return;
-			collListeners.add(listener);
+		synchronized (listenerSync) {
+			listeners = CopyOnWrite.addIfAbsent(listeners, listener);
 		}
 	}
 
@@ -564,8 +679,37 @@ public abstract class OSCReceiver
 	 *						the list of notified objects.
 	 */
 	public void removeOSCListener(OSCListener listener) {
-		synchronized (collListeners) {
-			collListeners.remove(listener);
+		synchronized (listenerSync) {
+			listeners = CopyOnWrite.remove(listeners, listener);
+		}
+	}
+
+	/**
+	 *  Registers a listener that gets informed
+	 *  about incoming messages through a reusable
+	 *  <code>OSCMessageView</code>. If only listeners of this
+	 *  kind are registered (and dumping is off), incoming packets are
+	 *  not decoded into <code>OSCMessage</code> objects at all. You can call this
+	 *  both when listening was started and stopped.
+	 *
+	 *  @param  listener	the listener to register
+	 */
+	public void addMessageViewListener(OSCMessageViewListener listener) {
+		synchronized (listenerSync) {
+			viewListeners = CopyOnWrite.addIfAbsent(viewListeners, listener);
+		}
+	}
+
+	/**
+	 *  Unregisters a listener that gets informed
+	 *  about incoming messages through a message view
+	 *
+	 *  @param  listener	the listener to remove from
+	 *						the list of notified objects.
+	 */
+	public void removeMessageViewListener(OSCMessageViewListener listener) {
+		synchronized (listenerSync) {
+			viewListeners = CopyOnWrite.remove(viewListeners, listener);
 		}
 	}
 
@@ -619,8 +763,9 @@ public abstract class OSCReceiver
 			if (!isListening) {
 				if (!isConnected()) connect();
 				isListening = true;
-				thread = new Thread(this, "OSCReceiver");
-				thread.setDaemon(true);
+				startWorkers();
+				startScheduler();
+				thread = NetUtil.newThread(threadFactory, this, "OSCReceiver");
 				thread.start();
 			}
 		}
@@ -678,10 +823,319 @@ public abstract class OSCReceiver
 						thread = null;
 					}
 				}
+				stopWorkers();
+				stopScheduler();
 			}
 		}
 	}
 
+	/**
+	 *	Specifies how the listening thread and the pipeline workers are created.
+	 *	By default, each receiver starts a platform daemon thread. A factory
+	 *	may for example create threads in a particular thread group, or
+	 *	virtual threads (see <code>NetUtil.getVirtualThreadFactory</code>),
+	 *	so that many receivers can block on their channels without the
+	 *	memory needed by the stacks of platform threads. The factory
+	 *	determines the name and daemon status of the threads. The new
+	 *	factory is used the next time the receiver starts listening.
+	 *
+	 *	@param	f	the factory to use, or <code>null</code> to use platform daemon threads
+	 *
+	 *	@see	NetUtil#getVirtualThreadFactory()
+	 */
+	public void setThreadFactory(ThreadFactory f) {
+		threadFactory = f;
+	}
+
+	/**
+	 *	Queries the factory for the receiver's threads.
+	 *
+	 *	@return	the factory, or <code>null</code> if platform daemon threads are used
+	 */
+	public ThreadFactory getThreadFactory() {
+		return threadFactory;
+	}
+
+	/**
+	 *	Configures the optional pipeline mode. By default, packets are
+	 *	decoded and dispatched by the listening thread itself, so that
+	 *	a slow listener delays the reception of the following packets.
+	 *	In pipeline mode, the listening thread only copies each received
+	 *	packet into a queue of preallocated buffers, from where one or more
+	 *	worker threads take it to decode and dispatch it.
+	 *	<p>
+	 *	With more than one worker, listeners are invoked concurrently
+	 *	and the order of the messages is not preserved. Blobs decoded as
+	 *	<code>ByteBuffer</code>s and message views remain valid only until the
+	 *	listener returns, as the queue buffer is reused afterwards.
+	 *	When listening is stopped, packets still waiting in the queue are discarded.
+	 *	<p>
+	 *	For a receiver using several channels, each channel gets its own queue
+	 *	and workers.
+	 *
+	 *	@param	capacity	the number of packets the queue can hold, each taking
+	 *						the receiver's buffer size. <code>0</code> turns the
+	 *						pipeline mode off
+	 *	@param	numWorkers	the number of decoding and dispatching threads
+	 *	@param	policy		what to do when the queue is full, one of
+	 *						<code>PIPELINE_DROP_NEWEST</code>, <code>PIPELINE_DROP_OLDEST</code>
+	 *						and <code>PIPELINE_BLOCK</code>
+	 *
+	 *	@throws	IllegalArgumentException	if a parameter is out of range
+	 *	@throws	IllegalStateException		if the receiver is listening
+	 *
+	 *	@see	#getPipelineDepth()
+	 *	@see	#getPipelineDrops()
+	 */
+	public void setPipeline(int capacity, int numWorkers, int policy) {
+		if (capacity < 0) throw new IllegalArgumentException(String.valueOf(capacity));
+		if (numWorkers < 1) throw new IllegalArgumentException(String.valueOf(numWorkers));
+		if ((policy < PIPELINE_DROP_NEWEST) || (policy > PIPELINE_BLOCK)) throw new IllegalArgumentException(String.valueOf(policy));
+		synchronized (generalSync) {
+			if (isListening) throw new IllegalStateException(NetUtil.getResourceString("errNotWhileActive"));
+			pipeCapacity	= capacity;
+			pipeWorkers		= numWorkers;
+			pipePolicy		= policy;
+			ring			= null;
+		}
+	}
+
+	/**
+	 *	Queries the capacity of the pipeline queue.
+	 *
+	 *	@return	the number of packets the queue can hold, or <code>0</code>
+	 *			if the pipeline mode is off
+	 */
+	public int getPipelineCapacity() {
+		synchronized (generalSync) {
+			return pipeCapacity;
+		}
+	}
+
+	/**
+	 *	Queries the number of packets waiting in the pipeline queue
+	 *	to be decoded.
+	 *
+	 *	@return	the current queue depth, or <code>0</code> if the pipeline mode is off
+	 */
+	public int getPipelineDepth() {
+		final OSCPacketRing r = ring;
+		return r == null ? 0 : r.getDepth();
+	}
+
+	/**
+	 *	Queries the number of packets discarded because the pipeline queue
+	 *	was full. The count is reset by <code>setPipeline</code>.
+	 *
+	 *	@return	the number of dropped packets
+	 */
+	public long getPipelineDrops() {
+		final OSCPacketRing r = ring;
+		return r == null ? 0L : r.getDropCount();
+	}
+
+	/**
+	 *	Configures the optional scheduled dispatch of bundles. By default,
+	 *	the messages of a bundle are dispatched as soon as it arrives, and
+	 *	the listeners are passed its time tag. When scheduling is on, a
+	 *	bundle whose time tag lies in the future is held back, and its
+	 *	messages are dispatched by a separate scheduling thread when it is
+	 *	due. Bundles which are due or late, and bundles with the time tag
+	 *	<code>OSCBundle.NOW</code>, are dispatched right away as before. A
+	 *	nested bundle with a later time tag than the enclosing bundle is
+	 *	scheduled again when the enclosing bundle is dispatched.
+	 *	<p>
+	 *	All pending bundles are kept in a single queue ordered by time tag,
+	 *	so thousands of them cost little more than their decoded packets.
+	 *	Bundles with equal time tags are dispatched in the order in which
+	 *	they arrived. When listening is stopped, pending bundles are discarded.
+	 *	<p>
+	 *	At most <code>DEFAULT_SCHEDULE_MAX_DEPTH</code> bundles are held back;
+	 *	further bundles are dispatched right away and counted (see
+	 *	<code>getScheduleOverflowCount</code>). Use
+	 *	<code>setScheduling( boolean, int, int )</code> to choose another limit.
+	 *	<p>
+	 *	Only <code>OSCListener</code>s are affected, <code>OSCMessageViewListener</code>s
+	 *	are always invoked when a packet arrives. Blobs decoded as
+	 *	<code>ByteBuffer</code>s (see <code>OSCPacketCodec.MODE_READ_BLOB_AS_BUFFER</code>)
+	 *	are copied when their bundle is held back.
+	 *
+	 *	@param	onOff	whether to schedule bundles
+	 *	@param	latency	the time in milliseconds by which bundles are dispatched
+	 *					ahead of their time tag, to compensate for the latency of
+	 *					the following processing. A negative value delays them
+	 *
+	 *	@throws	IllegalStateException	if the receiver is listening
+	 *
+	 *	@see	#getScheduleDepth()
+	 *	@see	#getScheduleLateness()
+	 *	@see	#getScheduleMaxLateness()
+	 */
+	public void setScheduling(boolean onOff, int latency) {
+		setScheduling(onOff, latency, DEFAULT_SCHEDULE_MAX_DEPTH);
+	}
+
+	/**
+	 *	Configures the optional scheduled dispatch of bundles,
+	 *	limiting the number of bundles held back.
+	 *
+	 *	@param	onOff		whether to schedule bundles
+	 *	@param	latency		the time in milliseconds by which bundles are dispatched
+	 *						ahead of their time tag
+	 *	@param	maxDepth	the maximum number of bundles held back. When it is
+	 *						reached, further bundles are dispatched right away
+	 *
+	 *	@throws	IllegalStateException		if the receiver is listening
+	 *	@throws	IllegalArgumentException	if <code>maxDepth</code> is less than one
+	 *
+	 *	@see	#setScheduling( boolean, int )
+	 *	@see	#getScheduleOverflowCount()
+	 */
+	public void setScheduling(boolean onOff, int latency, int maxDepth) {
+		if (maxDepth < 1) throw new IllegalArgumentException(String.valueOf(maxDepth));
+		synchronized (generalSync) {
+			if (isListening) throw new IllegalStateException(NetUtil.getResourceString("errNotWhileActive"));
+			schedOn			= onOff;
+			scheduler		= onOff ? new OSCBundleScheduler(this, latency, maxDepth) : null;
+		}
+	}
+
+	/**
+	 *	Queries whether bundles are dispatched according to their time tags.
+	 *
+	 *	@see	#setScheduling( boolean, int )
+	 */
+	public boolean isScheduling() {
+		synchronized (generalSync) {
+			return schedOn;
+		}
+	}
+
+	/**
+	 *	Queries the number of bundles waiting to be dispatched.
+	 *
+	 *	@return	the current queue depth, or <code>0</code> if scheduling is off
+	 */
+	public int getScheduleDepth() {
+		final OSCBundleScheduler s = scheduler;
+		return s == null ? 0 : s.getDepth();
+	}
+
+	/**
+	 *	Queries the largest number of bundles which were waiting
+	 *	to be dispatched at the same time. The value is reset by <code>setScheduling</code>.
+	 *
+	 *	@return	the peak queue depth, or <code>0</code> if scheduling is off
+	 */
+	public int getScheduleMaxDepth() {
+		final OSCBundleScheduler s = scheduler;
+		return s == null ? 0 : s.getMaxDepth();
+	}
+
+	/**
+	 *	Queries how late the held back bundles were dispatched on average,
+	 *	which reflects the precision of the scheduling thread's wake-up.
+	 *	The value is reset by <code>setScheduling</code>.
+	 *
+	 *	@return	the mean lateness in microseconds, or <code>0</code> if scheduling is off
+	 */
+	public long getScheduleLateness() {
+		final OSCBundleScheduler s = scheduler;
+		return s == null ? 0L : s.getMeanLateness();
+	}
+
+	/**
+	 *	Queries the largest lateness of any bundle, including bundles
+	 *	which arrived after they were due. The value is reset by <code>setScheduling</code>.
+	 *
+	 *	@return	the maximum lateness in microseconds, or <code>0</code> if scheduling is off
+	 */
+	public long getScheduleMaxLateness() {
+		final OSCBundleScheduler s = scheduler;
+		return s == null ? 0L : s.getMaxLateness();
+	}
+
+	/**
+	 *	Queries the number of bundles which arrived after they were due,
+	 *	taking into account the latency. The count is reset by <code>setScheduling</code>.
+	 *
+	 *	@return	the number of late bundles
+	 */
+	public long getScheduleLateCount() {
+		final OSCBundleScheduler s = scheduler;
+		return s == null ? 0L : s.getLateCount();
+	}
+
+	/**
+	 *	Queries the number of future bundles which were dispatched right away
+	 *	because the maximum depth was reached. The count is reset by <code>setScheduling</code>.
+	 *
+	 *	@return	the number of bundles which could not be held back
+	 *
+	 *	@see	#setScheduling( boolean, int, int )
+	 */
+	public long getScheduleOverflowCount() {
+		final OSCBundleScheduler s = scheduler;
+		return s == null ? 0L : s.getOverflowCount();
+	}
+
+	// call in generalSync
+	private void startScheduler() {
+		stopScheduler();	// the listening thread may have died without stopListening
+		final OSCBundleScheduler s = scheduler;
+		if (s == null) return;
+		s.open();
+		schedThread = NetUtil.newThread(threadFactory, s, "OSCReceiver-Scheduler");
+		schedThread.start();
+	}
+
+	// call in generalSync, after the listening thread has stopped
+	private void stopScheduler() {
+		final OSCBundleScheduler s	= scheduler;
+		final Thread t				= schedThread;
+		schedThread = null;
+		if ((s == null) || (t == null)) return;
+		s.close();
+		try {
+			if (t != Thread.currentThread()) t.join(5000);	// a listener may stop the receiver
+		} catch (InterruptedException e1) {
+			NetUtil.log(Level.INFO, "", e1);
+		}
+	}
+
+	// call in generalSync
+	private void startWorkers() {
+		stopWorkers();	// the listening thread may have died without stopListening
+		if (pipeCapacity == 0) return;
+		final int slotSize = getBufferSize();
+		if ((ring == null) || (ring.slotSize != slotSize)) {
+			ring = new OSCPacketRing(pipeCapacity, slotSize, pipePolicy);
+		} else {
+			ring.open();
+		}
+		workers = new Thread[pipeWorkers];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = NetUtil.newThread(threadFactory, new Worker(ring), "OSCReceiver-Worker-" + i);
+			workers[i].start();
+		}
+	}
+
+	// call in generalSync, after the listening thread has stopped
+	private void stopWorkers() {
+		final OSCPacketRing r	= ring;
+		final Thread[] w		= workers;
+		workers = null;
+		if ((r == null) || (w == null)) return;
+		r.close();
+		try {
+			for (Thread t : w) {
+				if (t != Thread.currentThread()) t.join(5000);	// a listener may stop the receiver
+			}
+		} catch (InterruptedException e1) {
+			NetUtil.log(Level.INFO, "", e1);
+		}
+	}
+
 	public void setBufferSize(int size) {
 		synchronized (bufSync) {
 			if (isListening) throw new IllegalStateException(NetUtil.getResourceString("errNotWhileActive"));
@@ -704,6 +1158,7 @@ public abstract class OSCReceiver
 	}
 
 	public void dispose() {
+		final Thread t = thread;
 		try {
 			stopListening();
 		} catch (IOException e1) {
@@ -714,13 +1169,19 @@ public abstract class OSCReceiver
 		} catch (IOException e1) {
 			e1.printStackTrace();
 		}
-		synchronized (collListeners) {
-			collListeners.clear();
+		synchronized (listenerSync) {
+			listeners		= new OSCListener[0];
+			viewListeners	= new OSCMessageViewListener[0];
 		}
 		synchronized (connListeners) {
 			connListeners.clear();
 		}
-		byteBuf = null;
+		synchronized (bufSync) {
+			// if the listening thread did not stop, it may still use the buffer
+			if ((t == null) || !t.isAlive()) OSCBufferPool.getDefaultPool().release(byteBuf);
+			byteBuf		= null;
+			allocBuf	= true;
+		}
 	}
 
 	protected abstract void sendGuardSignal() throws IOException;
@@ -735,18 +1196,52 @@ public abstract class OSCReceiver
 
 	protected void flipDecodeDispatch(SocketAddress sender)
 			throws IOException {
+		byteBuf.flip();
+		decodeDispatch(byteBuf, sender);
+	}
+
+	/**
+	 *	Decodes and dispatches a packet, or passes it on to the
+	 *	pipeline's workers. Called by the listening thread.
+	 *
+	 *	@param	b		the packet, from position zero to the limit
+	 *	@param	sender	the packet's sender
+	 */
+	protected void decodeDispatch(ByteBuffer b, SocketAddress sender)
+			throws IOException {
+		final OSCPacketRing r = ring;
+		if (r != null) {
+			try {
+				r.put(b, sender);
+			} catch (InterruptedException e1) {
+				NetUtil.log(Level.INFO, "", e1);
+			}
+			return;
+		}
+		view = decodeDispatch(b, sender, view);
+	}
+
+	// decodes the packet from position to limit; returns the message view
+	// to use for the next packet
+	private OSCMessageView decodeDispatch(ByteBuffer b, SocketAddress sender, OSCMessageView v)
+			throws IOException {
 		final OSCPacket p;
 
 		try {
-			byteBuf.flip();
-			p = c.decode(byteBuf);
+			final OSCMessageViewListener[] arrView = listenerOwner.viewListeners;
+			if (arrView.length > 0) {
+				if ((v == null) || (v.getCodec() != c)) v = new OSCMessageView(c);
+				dispatchView(arrView, b, v, b.position(), b.limit(), sender, OSCBundle.NOW);
+				if ((dumpMode == kDumpOff) && (listenerOwner.listeners.length == 0)) return v;	// no need to decode
+			}
+			p = c.decode(b);
 
 			if (dumpMode != kDumpOff) {
 				printStream.print("r: ");
 				if ((dumpMode & kDumpText) != 0) OSCPacket.printTextOn(printStream, p);
 				if ((dumpMode & kDumpHex) != 0) {
-					byteBuf.flip();
-					OSCPacket.printHexOn(printStream, byteBuf);
+					b.flip();
+					OSCPacket.printHexOn(printStream, b);
 				}
 			}
 			dispatchPacket(p, sender, OSCBundle.NOW);    // OSCBundles will override this dummy time tag
@@ -756,37 +1251,77 @@ public abstract class OSCReceiver
 				NetUtil.log(Level.SEVERE, "", e1);
 			}
 		}
+		return v;
+	}
+
+	private void dispatchView(OSCMessageViewListener[] arrView, ByteBuffer b, OSCMessageView v, int off, int lim,
+							  SocketAddress sender, long time)
+			throws OSCException {
+		if (OSCPacketCodec.isBundle(b, off, lim)) {
+			if (lim - off < 16) throw new OSCException(OSCException.FORMAT, null);
+			time = b.getLong(off + 8);
+			int pos = off + 16;
+			while (pos < lim) {
+				final int size	= b.getInt(pos);
+				final int end	= pos + 4 + size;
+				if ((size < 0) || (end > lim)) throw new OSCException(OSCException.FORMAT, null);
+				dispatchView(arrView, b, v, pos + 4, end, sender, time);
+				pos = end;
+			}
+		} else {
+			v.wrap(b, off, lim);
+			for (OSCMessageViewListener listener : arrView) {
+				listener.messageReceived(v, sender, time);
+			}
+		}
 	}
 
 	private void dispatchPacket(OSCPacket p, SocketAddress sender, long time) {
 		if (p instanceof OSCMessage) {
 			dispatchMessage((OSCMessage) p, sender, time);
 		} else if (p instanceof OSCBundle) {
-			final OSCBundle bndl = (OSCBundle) p;
-			time = bndl.getTimeTag();
-			for (int i = 0; i < bndl.getPacketCount(); i++) {
-				dispatchPacket(bndl.getPacket(i), sender, time);
+			final OSCBundle bndl				= (OSCBundle) p;
+			final OSCBundleScheduler s			= listenerOwner.scheduler;
+			// a nested bundle sharing the time tag of the enclosing one is due as well
+			if ((s == null) || (bndl.getTimeTag() == time) || !s.schedule(bndl, sender)) {
+				dispatchBundle(bndl, sender);
 			}
 		} else {
 			assert false : p.getClass().getName();
 		}
 	}
 
-	private void dispatchMessage(OSCMessage msg, SocketAddress sender, long time) {
-		final OSCListener[] arrListeners;
-		synchronized (collListeners) {
-			arrListeners = new OSCListener[collListeners.size()];
-			collListeners.toArray(arrListeners);
+	// called directly or by the scheduling thread when the bundle is due
+	void dispatchBundle(OSCBundle bndl, SocketAddress sender) {
+		final long time = bndl.getTimeTag();
+		for (int i = 0; i < bndl.getPacketCount(); i++) {
+			dispatchPacket(bndl.getPacket(i), sender, time);
 		}
-		for (OSCListener listener : arrListeners) {
+	}
+
+	private void dispatchMessage(OSCMessage msg, SocketAddress sender, long time) {
+		for (OSCListener listener : listenerOwner.listeners) {
 			listener.messageReceived(msg, sender, time);
 		}
 	}
 
 	protected void checkBuffer() {
+		checkBuffer(bufSize);
+	}
+
+	/**
+	 *	Borrows the buffer from the pool if necessary.
+	 *
+	 *	@param	initialCapacity	the capacity to start with. For transports which
+	 *							can grow the buffer on demand, this may be less
+	 *							than the buffer size
+	 */
+	protected void checkBuffer(int initialCapacity) {
 		synchronized (bufSync) {
 			if (allocBuf) {
-				byteBuf = ByteBuffer.allocateDirect(bufSize);
+				final OSCBufferPool pool = OSCBufferPool.getDefaultPool();
+				pool.release(byteBuf);
+				byteBuf = pool.acquire(Math.min(bufSize, initialCapacity));
 				allocBuf = false;
 			}
 		}
@@ -838,6 +1373,38 @@ public abstract class OSCReceiver
 
 	// --------------------- internal classes ---------------------
 
+	// takes packets from the pipeline queue
+	private final class Worker
+			implements Runnable {
+
+		private final OSCPacketRing	r;
+		private OSCMessageView		v	= null;
+
+		protected Worker(OSCPacketRing r) {
+			this.r = r;
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					final int idx = r.take();
+					if (idx < 0) return;
+					try {
+						v = decodeDispatch(r.getSlot(idx), r.getSender(idx), v);
+					} catch (IOException e1) {
+						NetUtil.log(Level.WARNING, "", e1);
+					} catch (RuntimeException e2) {    // e.g. thrown by a listener; keep the worker alive
+						NetUtil.log(Level.SEVERE, "", e2);
+					} finally {
+						r.release(idx);
+					}
+				}
+			} catch (InterruptedException e1) {
+				NetUtil.log(Level.INFO, "", e1);
+			}
+		}
+	}
+
 	private static class UDPOSCReceiver
 			extends OSCReceiver {
 
@@ -947,6 +1514,7 @@ public abstract class OSCReceiver
 						if (!isListening) 								break 		listen;
 						if (sender == null) 							continue	listen;
 						if ((target != null) && !target.equals(sender)) continue 	listen;
+						if (byteBuf.position() == 0)					continue	listen;	// e.g. a late guard signal
 
 						flipDecodeDispatch(sender);
 					} catch (ClosedChannelException e1) {    // bye bye, we have to quit
@@ -990,17 +1558,319 @@ public abstract class OSCReceiver
 		}
 	}
 
+	// a receiver which owns several UDP receivers bound to the same port
+	private static class MultiUDPOSCReceiver
+			extends OSCReceiver {
+
+		private final int			numChannels;
+		private UDPOSCReceiver[]	shards		= null;
+		private DatagramChannel		firstCh		= null;	// bound by the caller with SO_REUSEPORT
+
+		protected MultiUDPOSCReceiver(OSCPacketCodec c, InetSocketAddress localAddress, int numChannels) {
+			super(c, UDP, localAddress, true);
+
+			this.numChannels = numChannels;
+		}
+
+		protected void setChannel(SelectableChannel ch)
+				throws IOException {
+			synchronized (generalSync) {
+				if (isListening) throw new IllegalStateException(NetUtil.getResourceString("errNotWhileActive"));
+
+				closeChannel();
+				firstCh = (DatagramChannel) ch;
+			}
+		}
+
+		public InetSocketAddress getLocalAddress()
+				throws IOException {
+			synchronized (generalSync) {
+				if (shards != null) return shards[0].getLocalAddress();
+				if (firstCh != null) {
+					final DatagramSocket ds = firstCh.socket();
+					return getLocalAddress(ds.getLocalAddress(), ds.getLocalPort());
+				}
+				return getLocalAddress(localAddress.getAddress(), localAddress.getPort());
+			}
+		}
+
+		public void setTarget(SocketAddress target) {
+			synchronized (generalSync) {
+				this.target = target;
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) shard.setTarget(target);
+				}
+			}
+		}
+
+		public void setCodec(OSCPacketCodec c) {
+			synchronized (generalSync) {
+				super.setCodec(c);
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) shard.setCodec(c);
+				}
+			}
+		}
+
+		public void setBufferSize(int size) {
+			synchronized (generalSync) {
+				super.setBufferSize(size);
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) shard.setBufferSize(size);
+				}
+			}
+		}
+
+		public void dumpOSC(int mode, PrintStream stream) {
+			synchronized (generalSync) {
+				super.dumpOSC(mode, stream);
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) shard.dumpOSC(mode, stream);
+				}
+			}
+		}
+
+		public void setThreadFactory(ThreadFactory f) {
+			synchronized (generalSync) {
+				super.setThreadFactory(f);
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) shard.setThreadFactory(f);
+				}
+			}
+		}
+
+		public void setPipeline(int capacity, int numWorkers, int policy) {
+			synchronized (generalSync) {
+				super.setPipeline(capacity, numWorkers, policy);
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) shard.setPipeline(capacity, numWorkers, policy);
+				}
+			}
+		}
+
+		public int getPipelineDepth() {
+			synchronized (generalSync) {
+				int sum = 0;
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) sum += shard.getPipelineDepth();
+				}
+				return sum;
+			}
+		}
+
+		public long getPipelineDrops() {
+			synchronized (generalSync) {
+				long sum = 0L;
+				if (shards != null) {
+					for (UDPOSCReceiver shard : shards) sum += shard.getPipelineDrops();
+				}
+				return sum;
+			}
+		}
+
+		public void connect()
+				throws IOException {
+			final OSCConnectionListener[] arrConn;
+			synchronized (generalSync) {
+				if (isListening) throw new IllegalStateException(NetUtil.getResourceString("errNotWhileActive"));
+
+				if (!isConnected()) {
+					DatagramChannel ch = ((firstCh != null) && firstCh.isOpen()) ? firstCh : null;
+					firstCh = null;
+					closeChannel();
+					final UDPOSCReceiver[] newShards = new UDPOSCReceiver[numChannels];
+					try {
+						if (ch == null) {
+							ch = DatagramChannel.open();
+							NetUtil.setReusePort(ch);
+							ch.socket().bind(localAddress);
+						}
+						newShards[0] = createShard(ch);
+						// all channels use the port picked by the first one
+						final InetSocketAddress boundAddress = new InetSocketAddress(localAddress.getAddress(), ch.socket().getLocalPort());
+						for (int i = 1; i < numChannels; i++) {
+							ch = DatagramChannel.open();
+							NetUtil.setReusePort(ch);
+							ch.socket().bind(boundAddress);
+							newShards[i] = createShard(ch);
+						}
+					} catch (IOException e1) {
+						if (ch != null) ch.close();
+						for (UDPOSCReceiver shard : newShards) {
+							if (shard != null) shard.closeChannel();
+						}
+						throw e1;
+					}
+					shards = newShards;
+				}
+				synchronized (connListeners) {
+					arrConn = new OSCConnectionListener[connListeners.size()];
+					connListeners.toArray(arrConn);
+				}
+			}
+			final InetSocketAddress targetI = (target instanceof InetSocketAddress) ? (InetSocketAddress) target : null;
+			for (OSCConnectionListener l : arrConn) {
+				l.onConnected(localAddress, targetI);
+			}
+		}
+
+		private UDPOSCReceiver createShard(DatagramChannel ch)
+				throws IOException {
+			final UDPOSCReceiver shard = new UDPOSCReceiver(getCodec(), ch);
+			((OSCReceiver) shard).listenerOwner = this;
+			shard.setBufferSize(getBufferSize());
+			shard.setTarget(target);
+			final OSCReceiver self = this;
+			if (self.dumpMode != kDumpOff) shard.dumpOSC(self.dumpMode, self.printStream);
+			shard.setPipeline(self.pipeCapacity, self.pipeWorkers, self.pipePolicy);
+			shard.setThreadFactory(getThreadFactory());
+			return shard;
+		}
+
+		public boolean isConnected() {
+			synchronized (generalSync) {
+				if (shards == null) return false;
+				for (UDPOSCReceiver shard : shards) {
+					if (!shard.isConnected()) return false;
+				}
+				return true;
+			}
+		}
+
+		public void startListening()
+				throws IOException {
+			synchronized (generalSync) {
+				checkNotInShardThread();
+
+				if (isListening) {
+					for (UDPOSCReceiver shard : shards) {
+						if (shard.isListening()) return;
+					}
+					isListening = false;    // all threads died
+				}
+				if (!isConnected()) connect();
+				isListening = true;
+				((OSCReceiver) this).startScheduler();	// shared by the shards
+				for (UDPOSCReceiver shard : shards) {
+					shard.startListening();
+				}
+			}
+		}
+
+		public void stopListening()
+				throws IOException {
+			final OSCConnectionListener[] arrConn;
+			synchronized (generalSync) {
+				checkNotInShardThread();
+
+				if (!isListening) return;
+				isListening = false;
+				stopShards();
+				((OSCReceiver) this).stopScheduler();
+				synchronized (connListeners) {
+					arrConn = new OSCConnectionListener[connListeners.size()];
+					connListeners.toArray(arrConn);
+				}
+			}
+			final InetSocketAddress targetI = (target instanceof InetSocketAddress) ? (InetSocketAddress) target : null;
+			for (OSCConnectionListener l : arrConn) {
+				l.onDisconnected(localAddress, targetI);
+			}
+		}
+
+		// a shard cannot stop itself, see OSCReceiver.stopListening
+		private void checkNotInShardThread() {
+			if (shards == null) return;
+			final Thread t = Thread.currentThread();
+			for (UDPOSCReceiver shard : shards) {
+				if (t == shard.thread) throw new IllegalStateException(NetUtil.getResourceString("errNotInThisThread"));
+			}
+		}
+
+		// the operating system decides which channel receives a guard signal,
+		// so signals from different sockets are sent until all threads have stopped
+		private void stopShards()
+				throws IOException {
+			final Thread[] threads = new Thread[shards.length];
+			for (int i = 0; i < shards.length; i++) {
+				final UDPOSCReceiver shard = shards[i];
+				synchronized (shard.generalSync) {
+					shard.isListening	= false;
+					threads[i]			= shard.thread;
+				}
+			}
+			final long deadline = System.currentTimeMillis() + 5000;
+			try {
+				for (int i = 0; i < threads.length; i++) {
+					while ((threads[i] != null) && threads[i].isAlive() && (System.currentTimeMillis() < deadline)) {
+						shards[i].sendGuardSignal();
+						threads[i].join(10);
+					}
+				}
+			} catch (InterruptedException e1) {
+				NetUtil.log(Level.INFO, "", e1);
+			}
+			for (UDPOSCReceiver shard : shards) {
+				final OSCReceiver s = shard;
+				synchronized (s.generalSync) {
+					s.stopWorkers();
+				}
+			}
+			for (int i = 0; i < threads.length; i++) {
+				if ((threads[i] != null) && threads[i].isAlive()) {
+					NetUtil.log(Level.INFO, "OSCReceiver.stopListening : rude task killing (" + this.hashCode() + ")");
+					closeChannel();
+					break;
+				}
+			}
+		}
+
+		protected void closeChannel()
+				throws IOException {
+			final UDPOSCReceiver[] oldShards = shards;
+			shards = null;
+			if (oldShards != null) {
+				IOException ex = null;
+				for (UDPOSCReceiver shard : oldShards) {
+					try {
+						shard.closeChannel();
+					} catch (IOException e1) {
+						ex = e1;
+					}
+				}
+				if (ex != null) throw ex;
+			}
+		}
+
+		public void dispose() {
+			final UDPOSCReceiver[] oldShards;
+			synchronized (generalSync) {
+				oldShards = shards;
+			}
+			super.dispose();
+			if (oldShards != null) {
+				for (UDPOSCReceiver shard : oldShards) shard.dispose();    // releases the buffers
+			}
+		}
+
+		public void run() { /* each channel has its own thread */ }
+
+		protected void sendGuardSignal() { /* not used */ }
+	}
+
 	private static class TCPOSCReceiver
 			extends OSCReceiver {
 
+		private static final int	CHUNK_SIZE	= 8192;	// bytes per read, larger packets are assembled by the decoder
+
 		private SocketChannel sch = null;
 
-		protected TCPOSCReceiver(OSCPacketCodec c, InetSocketAddress localAddress) {
-			super(c, TCP, localAddress, true);
+		protected TCPOSCReceiver(OSCPacketCodec c, String protocol, InetSocketAddress localAddress) {
+			super(c, protocol, localAddress, true);
 		}
 
-		protected TCPOSCReceiver(OSCPacketCodec c, SocketChannel sch) {
-			super(c, TCP, new InetSocketAddress(sch.socket().getLocalAddress(), sch.socket().getLocalPort()), false);
+		protected TCPOSCReceiver(OSCPacketCodec c, String protocol, SocketChannel sch) {
+			super(c, protocol, new InetSocketAddress(sch.socket().getLocalAddress(), sch.socket().getLocalPort()), false);
 
 			this.sch = sch;
 		}
@@ -1085,36 +1955,35 @@ public abstract class OSCReceiver
 
 		public void run() {
 			final SocketAddress sender = sch.socket().getRemoteSocketAddress();
-			int len, packetSize;
+			final OSCFrameDecoder decoder = OSCFrameDecoder.newUsing(getProtocol(), getBufferSize());
+			final OSCFrameDecoder.Handler handler = new OSCFrameDecoder.Handler() {
+				public void frameDecoded(ByteBuffer b) {
+					try {
+						decodeDispatch(b, sender);
+					} catch (IOException e1) {	// the packet is malformed, but the stream is intact
+						if (isListening) {
+							NetUtil.log(Level.WARNING, "", e1);
+						}
+					}
+				}
+			};
 
-			checkBuffer();
+			checkBuffer(CHUNK_SIZE);
 
 			try {
-				listen:
 				while (isListening) {
 					try {
-						byteBuf.rewind().limit(4);    // in TCP mode, first four bytes are packet size in bytes
-						do {
-							len = sch.read(byteBuf);
-							if (len == -1) break listen;
-						} while (byteBuf.hasRemaining());
-
-						byteBuf.rewind();
-						packetSize = byteBuf.getInt();
-						byteBuf.rewind().limit(packetSize);
-
-						while (byteBuf.hasRemaining()) {
-							len = sch.read(byteBuf);
-							if (len == -1) break listen;
-						}
-
-						flipDecodeDispatch(sender);
-//						flipDecodeDispatch(target);
-					} catch (IllegalArgumentException e1) {    // thrown on illegal byteBuf.limit() calls
+						// a read may end anywhere within a packet or
+						// contain several packets; the decoder keeps the state
+						byteBuf.clear();
+						if (sch.read(byteBuf) == -1) break;
+						byteBuf.flip();
+						decoder.decode(byteBuf, handler);
+					} catch (OSCException e1) {    // invalid packet size, the stream cannot be resynchronized
 						if (isListening) {
-							final OSCException e2 = new OSCException(OSCException.RECEIVE, e1.toString());
-							NetUtil.log(Level.WARNING, "", e2);
+							NetUtil.log(Level.WARNING, "", e1);
 						}
+						return;
 					} catch (ClosedChannelException e1) {    // bye bye, we have to quit
 						if (isListening) {
 							NetUtil.log(Level.WARNING, "", e1);
@@ -1127,6 +1996,7 @@ public abstract class OSCReceiver
 					}
 				}
 			} finally {
+				decoder.reset();
 				synchronized (threadSync) {
 					thread = null;
 					threadSync.notifyAll();   // stopListening() might be waiting
@@ -20,6 +20,7 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.ServerSocketChannel;
@@ -29,6 +30,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 
 /**
@@ -150,6 +152,8 @@ public abstract class OSCServer
 	protected final List<OSCConnectionListener>	connListeners = new ArrayList<OSCConnectionListener>();
 	protected OSCPacketCodec					defaultCodec;
 	private final String						protocol;
+	private volatile ThreadFactory				threadFactory	= null;
+	private volatile OSCSocketOptions			socketOptions	= null;
 
 	protected OSCServer(OSCPacketCodec c, String protocol) {
 		defaultCodec = c;
@@ -162,7 +166,7 @@ public abstract class OSCServer
 	 *	and uses the local machine's IP. To determine the resulting
 	 *	port, you can use <code>getLocalAddress</code> afterwards.
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created server
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -184,7 +188,7 @@ public abstract class OSCServer
 	 *	port, you can use <code>getLocalAddress</code> afterwards.
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created server
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -212,7 +216,7 @@ public abstract class OSCServer
 	 *	method of any registered <code>OSCListener</code>, and must be picked
 	 *	up and handed in to the <code>send</code> method to reply back to the client!
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created server
 	 *
@@ -238,7 +242,7 @@ public abstract class OSCServer
 	 *	up and handed in to the <code>send</code> method to reply back to the client!
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created server
 	 *
@@ -263,7 +267,7 @@ public abstract class OSCServer
 	 *	method of any registered <code>OSCListener</code>, and must be picked
 	 *	up and handed in to the <code>send</code> method to reply back to the client!
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -294,7 +298,7 @@ public abstract class OSCServer
 	 *	up and handed in to the <code>send</code> method to reply back to the client!
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -316,7 +320,7 @@ public abstract class OSCServer
 	 *	Creates a new instance of an <code>OSCServer</code>, using
 	 *	default codec and a specific transport protocol and local socket address.
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
 	 *							an arbitrary free port is picked when the receiver is started. (you can find out
 	 *							the actual port in this case by calling <code>getLocalAddress()</code> after the
@@ -340,7 +344,7 @@ public abstract class OSCServer
 	 *	a given codec, a specific transport protocol and local socket address.
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
 	 *							an arbitrary free port is picked when the receiver is started. (you can find out
 	 *							the actual port in this case by calling <code>getLocalAddress()</code> after the
@@ -357,16 +361,63 @@ public abstract class OSCServer
 	public static OSCServer newUsing(OSCPacketCodec c, String protocol, InetSocketAddress localAddress)
 			throws IOException {
 		if (protocol.equals(UDP)) {
-			return new UDPOSCServer(c, localAddress);
+			return new UDPOSCServer(c, localAddress, 1);
 
-		} else if (protocol.equals(TCP)) {
-			return new TCPOSCServer(c, localAddress);
+		} else if (protocol.equals(TCP) || protocol.equals(TCP_SLIP)) {
+			return new TCPOSCServer(c, protocol, localAddress);
 
 		} else {
 			throw new IllegalArgumentException(NetUtil.getResourceString("errUnknownProtocol") + protocol);
 		}
 	}
 
+	/**
+	 *	Creates a new instance of an <code>OSCServer</code>, using
+	 *	a given codec, a specific transport protocol and local socket address,
+	 *	which receives on several channels or threads in parallel.
+	 *	<p>
+	 *	For <B>UDP</B>, this binds <code>numChannels</code> datagram channels to
+	 *	the same port using <code>SO_REUSEPORT</code>, each with its own listening
+	 *	thread. Replies are sent from the first channel. See
+	 *	<code>OSCReceiver.newUsing( OSCPacketCodec, String, InetSocketAddress, int )</code>
+	 *	for the ordering of messages and the requirements.
+	 *	<p>
+	 *	For <B>TCP</B> and <B>TCP_SLIP</B>, this creates a server which does not use a receiver and
+	 *	a thread per connection, but serves all connections from <code>numChannels</code>
+	 *	event loops, each a thread waiting on a <code>java.nio.channels.Selector</code>. This
+	 *	scales to thousands of connections. Messages of one connection are
+	 *	always dispatched by the same thread, in the order in which they were
+	 *	received. Listeners must return quickly, because they delay all other
+	 *	connections served by the same loop, and they must not call <code>stop</code>.
+	 *	Sending does not block: what the client's socket does not accept
+	 *	immediately is queued and written by the event loop.
+	 *
+	 *	@param	c				the codec to use
+	 *	@param	protocol		the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
+	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
+	 *							an arbitrary free port is picked when the server is started
+	 *	@param	numChannels		the number of channels and listening threads (UDP), or
+	 *							the number of event loops (TCP and TCP_SLIP)
+	 *	@return				the newly created server
+	 *
+	 *	@throws	IOException					if a networking error occurs while creating the socket
+	 *	@throws	IllegalArgumentException	if an illegal protocol or number of channels is used
+	 *
+	 *	@see	OSCReceiver#newUsing( OSCPacketCodec, String, InetSocketAddress, int )
+	 */
+	public static OSCServer newUsing(OSCPacketCodec c, String protocol, InetSocketAddress localAddress, int numChannels)
+			throws IOException {
+		if (numChannels < 1) throw new IllegalArgumentException(String.valueOf(numChannels));
+		if (protocol.equals(TCP) || protocol.equals(TCP_SLIP)) {
+			return new SelectorTCPOSCServer(c, protocol, localAddress, numChannels);
+		}
+		if (numChannels == 1) return newUsing(c, protocol, localAddress);
+		if (!protocol.equals(UDP)) {
+			throw new IllegalArgumentException(NetUtil.getResourceString("errUnknownProtocol") + protocol);
+		}
+		return new UDPOSCServer(c, localAddress, numChannels);
+	}
+
 	public String getProtocol()
 	{
 		return protocol;
@@ -415,6 +466,27 @@ public abstract class OSCServer
 	 */
 	public abstract void send(OSCPacket p, SocketAddress target) throws IOException;
 
+	/**
+	 *	Sends an OSC packet (bundle or message) to all connected
+	 *	clients. This is only supported in <code>TCP</code> mode. The packet is
+	 *	encoded only once (once per codec if clients use different codecs),
+	 *	and the same bytes are written to each client.
+	 *	<p>
+	 *	A server created with <code>newUsing( c, TCP, localAddress, numChannels )</code>
+	 *	does not block on slow clients: what a client's socket does not accept
+	 *	immediately is queued for that client. A client whose queue exceeds
+	 *	64 times the buffer size is disconnected. The other TCP server
+	 *	writes to the clients one after the other, and a stalled client
+	 *	delays the remaining ones.
+	 *
+	 *	@param	p		the packet to send
+	 *
+	 *	@throws	IOException	if a write error, OSC encoding error,
+	 *						buffer overflow error or network error occurs.
+	 *						The packet is still sent to the other clients. If several
+	 *						clients fail, the last exception is thrown
+	 *	@throws	UnsupportedOperationException	in <code>UDP</code> mode
+	 */
 	public abstract void sendAll(OSCPacket p) throws IOException;
 
 	/**
@@ -485,6 +557,106 @@ public abstract class OSCServer
 		return defaultCodec;
 	}
 
+	/**
+	 *	Specifies how the server's threads are created. These are the
+	 *	listening threads for UDP, and for TCP the thread accepting the
+	 *	connections and the receiving thread of each connection, or the event loops
+	 *	of a server created with <code>newUsing( c, TCP, localAddress, numChannels )</code>.
+	 *	By default, platform daemon threads are used. With a factory for
+	 *	virtual threads (see <code>NetUtil.getVirtualThreadFactory</code>),
+	 *	a TCP server with a receiving thread per connection scales to many
+	 *	thousand clients. The factory determines the name and daemon status
+	 *	of the threads. The new factory is used for threads started afterwards.
+	 *
+	 *	@param	f	the factory to use, or <code>null</code> to use platform daemon threads
+	 *
+	 *	@see	NetUtil#getVirtualThreadFactory()
+	 */
+	public void setThreadFactory(ThreadFactory f) {
+		threadFactory = f;
+	}
+
+	/**
+	 *	Queries the factory for the server's threads.
+	 *
+	 *	@return	the factory, or <code>null</code> if platform daemon threads are used
+	 */
+	public ThreadFactory getThreadFactory() {
+		return threadFactory;
+	}
+
+	/**
+	 *	Specifies options such as <code>TCP_NODELAY</code> or the socket buffer
+	 *	sizes. For UDP, they are applied to the server's socket, immediately if
+	 *	the server is active and otherwise when it is started. For TCP, they are
+	 *	applied to each connection as it is accepted.
+	 *
+	 *	@param	options	the options to use, or <code>null</code> to use the
+	 *					operating system's defaults
+	 *
+	 *	@throws	IOException	if an option cannot be applied to an open socket
+	 *
+	 *	@see	OSCSocketOptions
+	 */
+	public void setSocketOptions(OSCSocketOptions options)
+			throws IOException {
+		socketOptions = options;
+	}
+
+	/**
+	 *	Queries the socket options.
+	 *
+	 *	@return	the options, or <code>null</code> if the defaults are used
+	 */
+	public OSCSocketOptions getSocketOptions() {
+		return socketOptions;
+	}
+
+	/**
+	 *	Turns write coalescing on or off for the connections to the clients.
+	 *	In coalescing mode, packets sent to a client are collected and written
+	 *	together, when the buffer is full, when <code>flush</code> is called, or at
+	 *	the latest <code>maxDelay</code> milliseconds after the first packet was
+	 *	collected. Turning coalescing off flushes the collected packets.
+	 *	<p>
+	 *	This is only supported for <code>TCP</code>.
+	 *
+	 *	@param	onOff		<code>true</code> to collect packets
+	 *	@param	maxDelay	the maximum time in milliseconds a packet is held back, or
+	 *						<code>0</code> to hold packets until the buffer is full
+	 *						or <code>flush</code> is called
+	 *
+	 *	@throws	IOException	if flushing the collected packets fails
+	 *	@throws	UnsupportedOperationException	for a <code>UDP</code> server
+	 *	@throws	IllegalArgumentException		if the delay is negative
+	 *
+	 *	@see	OSCTransmitter#setCoalescing( boolean, int )
+	 */
+	public void setCoalescing(boolean onOff, int maxDelay)
+			throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 *	Queries whether write coalescing is on.
+	 *
+	 *	@return	<code>true</code> if outgoing packets are collected
+	 */
+	public boolean isCoalescing() {
+		return false;
+	}
+
+	/**
+	 *	Writes the packets collected in coalescing mode to all clients.
+	 *	If coalescing is off, this does nothing.
+	 *
+	 *	@throws	IOException	if a write error or network error occurs
+	 *
+	 *	@see	#setCoalescing( boolean, int )
+	 */
+	public void flush()
+			throws IOException { /* empty */ }
+
 	/**
 	 *	Specifies which codec is used in packet coding and decoding
 	 *	for a given client socket.
@@ -523,6 +695,27 @@ public abstract class OSCServer
 	 */
 	public abstract void dispose();
 
+	/*
+	 *	Encodes a packet into a new read-only buffer, which can be
+	 *	sent to several clients using duplicates of it.
+	 *
+	 *	@param	off		the number of bytes to reserve in front of the packet.
+	 *					If greater than zero, the packet size is written there
+	 *	@param	maxSize	the maximum packet size (buffer size)
+	 */
+	static ByteBuffer encodeShared(OSCPacketCodec c, OSCPacket p, int off, int maxSize)
+			throws IOException {
+		final int len = c.getSize(p);
+		if (len > maxSize) throw new OSCException(OSCException.BUFFER,
+			p instanceof OSCMessage ? ((OSCMessage) p).getName() : p.getClass().getName());
+		final ByteBuffer b = ByteBuffer.allocate(off + len);
+		if (off > 0) b.putInt(off - 4, len);
+		b.position(off);
+		c.encode(p, b);
+		b.flip();
+		return b.asReadOnlyBuffer();
+	}
+
 	protected InetSocketAddress getLocalAddress(InetAddress addr, int port)
 			throws UnknownHostException {
 		return new InetSocketAddress(addr.getHostName().equals("0.0.0.0") ? InetAddress.getLocalHost() : addr, port);
@@ -535,12 +728,14 @@ public abstract class OSCServer
 		private final OSCTransmitter	trns;
 		private final InetSocketAddress localAddress;
 
-		protected UDPOSCServer(OSCPacketCodec c, InetSocketAddress localAddress)
+		protected UDPOSCServer(OSCPacketCodec c, InetSocketAddress localAddress, int numChannels)
 				throws IOException {
 			super(c, UDP);
 			this.localAddress = localAddress;
-			rcv 	= OSCReceiver	.newUsing(c, UDP, localAddress);
+			rcv 	= OSCReceiver	.newUsing(c, UDP, localAddress, numChannels);
 			trns	= OSCTransmitter.newUsing(c, UDP, localAddress);
+			// the receiver's other channels share the transmitter's port
+			trns.reusePort = numChannels > 1;
 		}
 
 		public InetSocketAddress getLocalAddress()
@@ -562,6 +757,17 @@ public abstract class OSCServer
 			super	.setCodec(c);
 		}
 
+		public void setThreadFactory(ThreadFactory f) {
+			rcv		.setThreadFactory(f);
+			super	.setThreadFactory(f);
+		}
+
+		public void setSocketOptions(OSCSocketOptions options)
+				throws IOException {
+			super.setSocketOptions(options);
+			trns.setSocketOptions(options);
+		}
+
 		public void setCodec(OSCPacketCodec c, SocketAddress target)
 				throws IOException {
 			throw new IOException("Not supported in UDP mode");
@@ -655,7 +861,8 @@ public abstract class OSCServer
 		private final Map<SocketAddress, OSCReceiver>		mapRcv	= new HashMap<SocketAddress, OSCReceiver>();	// key = SocketAddress (remote), value = OSCReceiver
 		private final Map<SocketAddress, OSCTransmitter>	mapTrns	= new HashMap<SocketAddress, OSCTransmitter>();	// key = SocketAddress (remote), value = OSCTransmitter
 
-		private final List<OSCListener>		collListeners   = new ArrayList<OSCListener>();
+		private final Object				listenerSync	= new Object();
+		private volatile OSCListener[]		listeners		= new OSCListener[0];	// copy-on-write
 		private Thread						thread			= null;
 		private final Object				startStopSync	= new Object();		// mutual exclusion startListening / stopListening
 		private final Object				threadSync		= new Object();		// communication with receiver thread
@@ -664,6 +871,8 @@ public abstract class OSCServer
 		private boolean						isListening		= false;
 
 		private int							bufSize			= DEFAULTBUFSIZE;
+		private boolean						coalescing		= false;	// synced by connSync
+		private int							maxDelay		= 0;
 
 		private int							inMode			= kDumpOff;
 		private int							outMode			= kDumpOff;
@@ -672,9 +881,9 @@ public abstract class OSCServer
 		
 		private final ServerSocketChannel	ssch;
 
-		protected TCPOSCServer(OSCPacketCodec c, InetSocketAddress localAddress)
+		protected TCPOSCServer(OSCPacketCodec c, String protocol, InetSocketAddress localAddress)
 				throws IOException {
-			super(c, TCP);
+			super(c, protocol);
 
 			ssch = ServerSocketChannel.open();
 			ssch.socket().bind(localAddress);
@@ -687,14 +896,14 @@ public abstract class OSCServer
 		}
 
 		public void addOSCListener(OSCListener listener) {
-			synchronized (collListeners) {
-				collListeners.add(listener);
+			synchronized (listenerSync) {
+				listeners = CopyOnWrite.add(listeners, listener);
 			}
 		}
 
 		public void removeOSCListener(OSCListener listener) {
-			synchronized (collListeners) {
-				collListeners.remove(listener);
+			synchronized (listenerSync) {
+				listeners = CopyOnWrite.remove(listeners, listener);
 			}
 		}
 
@@ -741,8 +950,7 @@ public abstract class OSCServer
 				}
 				if (!isListening) {
 					isListening = true;
-					thread = new Thread(this, "TCPServerBody");
-					thread.setDaemon(true);
+					thread = NetUtil.newThread(getThreadFactory(), this, "TCPServerBody");
 					thread.start();
 				}
 			}
@@ -810,10 +1018,67 @@ public abstract class OSCServer
 
 		@Override
 		public void sendAll(OSCPacket p) throws IOException {
+			final List<OSCTransmitter> trnsList;
+			final int maxSize;
+			synchronized (connSync) {
+				trnsList	= new ArrayList<OSCTransmitter>(mapTrns.values());
+				maxSize		= bufSize;
+			}
+			// the packet is encoded once per codec, and the bytes are written to each client
+			final Map<OSCPacketCodec, ByteBuffer> encoded = new HashMap<OSCPacketCodec, ByteBuffer>(4);
 			IOException ex = null;
-			for (OSCTransmitter t : mapTrns.values()) {
+			for (OSCTransmitter t : trnsList) {
 				try {
-					t.send(p);
+					final OSCPacketCodec c = t.getCodec();
+					ByteBuffer b = encoded.get(c);
+					if (b == null) {
+						b = encodeShared(c, p, 0, maxSize);
+						encoded.put(c, b);
+					}
+					t.send(b.duplicate());
+				} catch (IOException ex1) {
+					ex = ex1;
+				}
+			}
+			if (ex != null) throw ex;
+		}
+
+		public void setCoalescing(boolean onOff, int maxDelay)
+				throws IOException {
+			if (maxDelay < 0) throw new IllegalArgumentException(String.valueOf(maxDelay));
+			final List<OSCTransmitter> trnsList;
+			synchronized (connSync) {
+				coalescing		= onOff;
+				this.maxDelay	= maxDelay;
+				trnsList		= new ArrayList<OSCTransmitter>(mapTrns.values());
+			}
+			IOException ex = null;
+			for (OSCTransmitter t : trnsList) {
+				try {
+					t.setCoalescing(onOff, maxDelay);
+				} catch (IOException ex1) {
+					ex = ex1;
+				}
+			}
+			if (ex != null) throw ex;
+		}
+
+		public boolean isCoalescing() {
+			synchronized (connSync) {
+				return coalescing;
+			}
+		}
+
+		public void flush()
+				throws IOException {
+			final List<OSCTransmitter> trnsList;
+			synchronized (connSync) {
+				trnsList = new ArrayList<OSCTransmitter>(mapTrns.values());
+			}
+			IOException ex = null;
+			for (OSCTransmitter t : trnsList) {
+				try {
+					t.flush();
 				} catch (IOException ex1) {
 					ex = ex1;
 				}
@@ -902,6 +1167,14 @@ public abstract class OSCServer
 						if (sch == null) continue listen;
 
 						sender	= sch.socket().getRemoteSocketAddress();
+						final OSCSocketOptions options = getSocketOptions();
+						if (options != null) {
+							try {
+								options.applyTo(sch);
+							} catch (IOException e12) {	// keep the connection with the default options
+								NetUtil.log(Level.WARNING, "", e12);
+							}
+						}
 
 						synchronized (connSync) {
 							InetSocketAddress local = (InetSocketAddress) sch.getLocalAddress();
@@ -911,8 +1184,9 @@ public abstract class OSCServer
 								l.onConnected(local, remote);
 							}
 
-							rcv = OSCReceiver.newUsing(defaultCodec, sch);
+							rcv = OSCReceiver.newUsing(defaultCodec, getProtocol(), sch);
 							rcv.setBufferSize(bufSize);
+							rcv.setThreadFactory(getThreadFactory());
 							mapRcv.put(sender, rcv);
 
 							rcv.addConnectionListener(new OSCConnectionListener() {
@@ -936,8 +1210,9 @@ public abstract class OSCServer
 								public void onConnected(InetSocketAddress local, InetSocketAddress remote) {}
 							});
 
-							trns = OSCTransmitter.newUsing(defaultCodec, sch);
+							trns = OSCTransmitter.newUsing(defaultCodec, getProtocol(), sch);
 							trns.setBufferSize(bufSize);
+							if (coalescing) trns.setCoalescing(true, maxDelay);
 							mapTrns.put(sender, trns);
 
 							trns.addConnectionListener(new OSCConnectionListener() {
@@ -988,10 +1263,8 @@ public abstract class OSCServer
 		}
 
 		public void messageReceived(OSCMessage msg, SocketAddress sender, long time) {
-			synchronized (collListeners) {
-				for (OSCListener listener : collListeners) {
-					listener.messageReceived(msg, sender, time);
-				}
+			for (OSCListener listener : listeners) {
+				listener.messageReceived(msg, sender, time);
 			}
 		}
 	}	
@@ -0,0 +1,184 @@
+/*
+ *  OSCSlip.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ *	SLIP framing (RFC 1055) as used by OSC 1.1 streams: each packet
+ *	is enclosed in END bytes, END and ESC bytes within the packet are
+ *	replaced by two byte escape sequences. The scans test eight bytes
+ *	at a time, using the fact that a byte of x ^ pattern is zero
+ *	exactly where x contains the pattern byte.
+ */
+final class OSCSlip {
+	static final byte			END			= (byte) 0xC0;
+	static final byte			ESC			= (byte) 0xDB;
+	static final byte			ESC_END		= (byte) 0xDC;
+	static final byte			ESC_ESC		= (byte) 0xDD;
+
+	private static final long	ENDS		= 0xC0C0C0C0C0C0C0C0L;
+	private static final long	ESCS		= 0xDBDBDBDBDBDBDBDBL;
+	private static final long	LOW7		= 0x7F7F7F7F7F7F7F7FL;
+
+	private OSCSlip() { /* static methods only */ }
+
+	/**
+	 *	Finds the first END or ESC byte.
+	 *
+	 *	@return	the index, or <code>lim</code> if the range contains neither
+	 */
+	static int indexOfSpecial(ByteBuffer b, int off, int lim) {
+		final boolean big = b.order() == ByteOrder.BIG_ENDIAN;
+		int i = off;
+		for (; i + 8 <= lim; i += 8) {
+			final long x = b.getLong(i);
+			final long m = zeroBytes(x ^ ENDS) | zeroBytes(x ^ ESCS);
+			if (m != 0L) return i + ((big ? Long.numberOfLeadingZeros(m) : Long.numberOfTrailingZeros(m)) >>> 3);
+		}
+		for (; i < lim; i++) {
+			final byte v = b.get(i);
+			if ((v == END) || (v == ESC)) return i;
+		}
+		return lim;
+	}
+
+	/**
+	 *	Counts the END and ESC bytes, each of which grows
+	 *	the escaped packet by one byte.
+	 */
+	static int countSpecial(ByteBuffer b, int off, int lim) {
+		int n = 0;
+		int i = off;
+		for (; i + 8 <= lim; i += 8) {
+			final long x = b.getLong(i);
+			n += Long.bitCount(zeroBytes(x ^ ENDS) | zeroBytes(x ^ ESCS));
+		}
+		for (; i < lim; i++) {
+			final byte v = b.get(i);
+			if ((v == END) || (v == ESC)) n++;
+		}
+		return n;
+	}
+
+	/**
+	 *	Escapes a packet where it is, working backwards from its end.
+	 *	Eight bytes without END or ESC are moved at once.
+	 *	The buffer must hold <code>numSpecial</code> more bytes after the packet.
+	 *
+	 *	@param	numSpecial	the number of END and ESC bytes in the packet (see <code>countSpecial</code>)
+	 */
+	static void escapeInPlace(ByteBuffer b, int off, int len, int numSpecial) {
+		int src = off + len;
+		int dst = src + numSpecial;
+		while (dst > src) {	// bytes before the first special byte stay where they are
+			if (src - off >= 8) {
+				final long x = b.getLong(src - 8);
+				if ((zeroBytes(x ^ ENDS) | zeroBytes(x ^ ESCS)) == 0L) {
+					src -= 8;
+					dst -= 8;
+					b.putLong(dst, x);	// dst > src, so no unread byte is overwritten
+					continue;
+				}
+			}
+			final byte v = b.get(--src);
+			if (v == END) {
+				b.put(--dst, ESC_END);
+				b.put(--dst, ESC);
+			} else if (v == ESC) {
+				b.put(--dst, ESC_ESC);
+				b.put(--dst, ESC);
+			} else {
+				b.put(--dst, v);
+			}
+		}
+	}
+
+	/**
+	 *	Escapes a packet from the position to the limit of <code>src</code>
+	 *	into <code>dst</code>, beginning at its position. Runs of
+	 *	ordinary bytes are copied in bulk.
+	 */
+	static void escape(ByteBuffer src, ByteBuffer dst) {
+		final int lim = src.limit();
+		int pos = src.position();
+		while (pos < lim) {
+			final int idx = indexOfSpecial(src, pos, lim);
+			if (idx > pos) {
+				src.limit(idx);
+				src.position(pos);
+				dst.put(src);
+				src.limit(lim);
+			}
+			if (idx == lim) break;
+			dst.put(ESC).put(src.get(idx) == END ? ESC_END : ESC_ESC);
+			pos = idx + 1;
+		}
+		src.position(lim);
+	}
+
+	/**
+	 *	Escapes a packet which was encoded into a buffer from the pool
+	 *	at index four, after an END byte at index three, and appends
+	 *	the closing END. (The codec pads relative to the buffer, so the
+	 *	packet cannot begin right after the END at index zero.)
+	 *
+	 *	@param	b	the buffer, which is returned to the pool if
+	 *				it is too small for the frame
+	 *	@param	len	the size of the packet in bytes
+	 *	@return	a buffer from the pool containing the frame from position to limit
+	 */
+	static ByteBuffer escapeFrame(ByteBuffer b, int len) {
+		final int n		= countSpecial(b, 4, 4 + len);
+		final int end	= 4 + len + n + 1;
+		if (end > b.capacity()) {
+			final OSCBufferPool	pool	= OSCBufferPool.getDefaultPool();
+			final ByteBuffer	oldBuf	= b;
+			b = pool.acquire(end);
+			oldBuf.limit(4 + len).position(0);
+			b.put(oldBuf);
+			pool.release(oldBuf);
+		}
+		b.clear();
+		escapeInPlace(b, 4, len, n);
+		b.put(3, END);
+		b.put(end - 1, END);
+		b.limit(end);
+		b.position(3);
+		return b;
+	}
+
+	/**
+	 *	Creates the frame of an encoded packet, for sending
+	 *	it to several connections.
+	 *
+	 *	@param	packet	the packet from position to limit. The position is not changed
+	 *	@return	a read-only buffer containing the frame
+	 */
+	static ByteBuffer encodeShared(ByteBuffer packet) {
+		final int n = countSpecial(packet, packet.position(), packet.limit());
+		final ByteBuffer b = ByteBuffer.allocate(packet.remaining() + n + 2);
+		b.put(END);
+		escape(packet.duplicate(), b);
+		b.put(END);
+		b.flip();
+		return b.asReadOnlyBuffer();
+	}
+
+	// sets the high bit of each byte of v which is zero, and clears all other bits
+	private static long zeroBytes(long v) {
+		return ~(((v & LOW7) + LOW7) | v | LOW7);
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ *  OSCSocketOptions.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.Socket;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ *	A set of socket options which is applied to the sockets
+ *	of transmitters, clients and servers. Options which are not
+ *	specified keep the operating system's default. For example, to send
+ *	small TCP messages without the delay of Nagle's algorithm:
+ *	<pre>
+ *      final OSCSocketOptions opt = new OSCSocketOptions();
+ *      opt.setTcpNoDelay( true );
+ *      client.setSocketOptions( opt );
+ *	</pre>
+ *	The options are read when a socket is created or accepted, or when
+ *	they are passed to <code>setSocketOptions</code>. Changing the object
+ *	afterwards does not affect existing sockets.
+ *	<p>
+ *	<code>TCP_NODELAY</code> and <code>SO_KEEPALIVE</code> apply only to TCP sockets,
+ *	the buffer sizes to TCP and UDP sockets.
+ *
+ *	@see	OSCTransmitter#setSocketOptions( OSCSocketOptions )
+ *	@see	OSCClient#setSocketOptions( OSCSocketOptions )
+ *	@see	OSCServer#setSocketOptions( OSCSocketOptions )
+ */
+public class OSCSocketOptions {
+	private Boolean	tcpNoDelay			= null;
+	private Boolean	keepAlive			= null;
+	private int		sendBufferSize		= 0;
+	private int		receiveBufferSize	= 0;
+
+	/**
+	 *	Creates a new set of options, none of which is specified.
+	 */
+	public OSCSocketOptions() { /* empty */ }
+
+	/**
+	 *	Specifies whether Nagle's algorithm is disabled (<code>TCP_NODELAY</code>).
+	 *	Disabling it sends small packets immediately instead of waiting
+	 *	for the acknowledgement of previous data, which can otherwise
+	 *	delay a message by up to 40 milliseconds.
+	 *
+	 *	@param	onOff	<code>true</code> to send immediately
+	 */
+	public void setTcpNoDelay(boolean onOff) {
+		tcpNoDelay = Boolean.valueOf(onOff);
+	}
+
+	/**
+	 *	Queries the <code>TCP_NODELAY</code> option.
+	 *
+	 *	@return	the option, or <code>null</code> if not specified
+	 */
+	public Boolean getTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	/**
+	 *	Specifies whether TCP keep-alive probes are sent on idle
+	 *	connections (<code>SO_KEEPALIVE</code>).
+	 *
+	 *	@param	onOff	<code>true</code> to enable keep-alive
+	 */
+	public void setKeepAlive(boolean onOff) {
+		keepAlive = Boolean.valueOf(onOff);
+	}
+
+	/**
+	 *	Queries the <code>SO_KEEPALIVE</code> option.
+	 *
+	 *	@return	the option, or <code>null</code> if not specified
+	 */
+	public Boolean getKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 *	Specifies the size of the socket's send buffer (<code>SO_SNDBUF</code>).
+	 *	The operating system may adjust the value.
+	 *
+	 *	@param	size	the size in bytes, or <code>0</code> to keep the default
+	 *
+	 *	@throws	IllegalArgumentException	if the size is negative
+	 */
+	public void setSendBufferSize(int size) {
+		if (size < 0) throw new IllegalArgumentException(String.valueOf(size));
+		sendBufferSize = size;
+	}
+
+	/**
+	 *	Queries the <code>SO_SNDBUF</code> option.
+	 *
+	 *	@return	the size in bytes, or <code>0</code> if not specified
+	 */
+	public int getSendBufferSize() {
+		return sendBufferSize;
+	}
+
+	/**
+	 *	Specifies the size of the socket's receive buffer (<code>SO_RCVBUF</code>).
+	 *	The operating system may adjust the value. For TCP, sizes
+	 *	above 64 KB are only effective if set before the connection is made.
+	 *
+	 *	@param	size	the size in bytes, or <code>0</code> to keep the default
+	 *
+	 *	@throws	IllegalArgumentException	if the size is negative
+	 */
+	public void setReceiveBufferSize(int size) {
+		if (size < 0) throw new IllegalArgumentException(String.valueOf(size));
+		receiveBufferSize = size;
+	}
+
+	/**
+	 *	Queries the <code>SO_RCVBUF</code> option.
+	 *
+	 *	@return	the size in bytes, or <code>0</code> if not specified
+	 */
+	public int getReceiveBufferSize() {
+		return receiveBufferSize;
+	}
+
+	void applyTo(SelectableChannel ch)
+			throws IOException {
+		if (ch instanceof SocketChannel) {
+			applyTo(((SocketChannel) ch).socket());
+		} else if (ch instanceof DatagramChannel) {
+			applyTo(((DatagramChannel) ch).socket());
+		}
+	}
+
+	void applyTo(Socket s)
+			throws IOException {
+		if (tcpNoDelay			!= null)	s.setTcpNoDelay(tcpNoDelay.booleanValue());
+		if (keepAlive			!= null)	s.setKeepAlive(keepAlive.booleanValue());
+		if (sendBufferSize		> 0)		s.setSendBufferSize(sendBufferSize);
+		if (receiveBufferSize	> 0)		s.setReceiveBufferSize(receiveBufferSize);
+	}
+
+	void applyTo(DatagramSocket s)
+			throws IOException {
+		if (sendBufferSize		> 0)		s.setSendBufferSize(sendBufferSize);
+		if (receiveBufferSize	> 0)		s.setReceiveBufferSize(receiveBufferSize);
+	}
+}
@@ -28,7 +28,15 @@ import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -74,6 +82,11 @@ public abstract class OSCTransmitter
 	
 	protected final InetSocketAddress	localAddress;
 	protected final boolean				revivable;
+	boolean								reusePort		= false;	// UDP: bind with SO_REUSEPORT (used by OSCServer)
+	protected OSCSocketOptions			socketOptions	= null;
+
+	private static ScheduledExecutorService	flushTimer	= null;	// shared by all coalescing transmitters
+	private static ExecutorService			flushWorkers	= null;	// runs the timed flushes which may block
 
 	protected OSCTransmitter(OSCPacketCodec c, String protocol, InetSocketAddress localAddress, boolean revivable) {
 		this.c				= c;
@@ -88,7 +101,7 @@ public abstract class OSCTransmitter
 	 *	and uses the local machine's IP. To determine the resulting
 	 *	port, you can use <code>getLocalAddress</code> afterwards.
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created transmitter
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -110,7 +123,7 @@ public abstract class OSCTransmitter
 	 *	port, you can use <code>getLocalAddress</code> afterwards.
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@return				the newly created transmitter
 	 *
 	 *	@throws	IOException					if a networking error occurs while creating the socket
@@ -132,7 +145,7 @@ public abstract class OSCTransmitter
 	 *	local socket, not the remote (or target) port. This can be set
 	 *	using the <code>setTarget</code> method!
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created transmitter
 	 *
@@ -152,7 +165,7 @@ public abstract class OSCTransmitter
 	 *	using the <code>setTarget</code> method!
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@return				the newly created transmitter
 	 *
@@ -172,7 +185,7 @@ public abstract class OSCTransmitter
 	 *	local socket, not the remote (or target) port. This can be set
 	 *	using the <code>setTarget</code> method!
 	 *
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -197,7 +210,7 @@ public abstract class OSCTransmitter
 	 *	using the <code>setTarget</code> method!
 	 *
 	 *	@param	c			the codec to use
-	 *	@param	protocol	the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol	the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	port		the port number for the OSC socket, or <code>0</code> to use an arbitrary free port
 	 *	@param	loopBack	if <code>true</code>, the &quot;loopback&quot; address (<code>&quot;127.0.0.1&quot;</code>)
 	 *						is used which limits communication to the local machine. If <code>false</code>, the
@@ -221,7 +234,7 @@ public abstract class OSCTransmitter
 	 *	local socket, not the remote (or target) socket. This can be set
 	 *	using the <code>setTarget</code> method!
 	 *
-	 *	@param	protocol		the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol		the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
 	 *							an arbitrary free port is picked when the transmitter is connected. (you can find out
 	 *							the actual port in this case by calling <code>getLocalAddress()</code> after the
@@ -245,7 +258,7 @@ public abstract class OSCTransmitter
 	 *	using the <code>setTarget</code> method!
 	 *
 	 *	@param	c				the codec to use
-	 *	@param	protocol		the protocol to use, currently either <code>UDP</code> or <code>TCP</code>
+	 *	@param	protocol		the protocol to use, currently <code>UDP</code>, <code>TCP</code> or <code>TCP_SLIP</code>
 	 *	@param	localAddress	a valid address to use for the OSC socket. If the port is <code>0</code>,
 	 *							an arbitrary free port is picked when the transmitter is connected. (you can find out
 	 *							the actual port in this case by calling <code>getLocalAddress()</code> after the
@@ -261,8 +274,8 @@ public abstract class OSCTransmitter
 		if (protocol.equals(UDP)) {
 			return new UDPOSCTransmitter(c, localAddress);
 
-		} else if (protocol.equals(TCP)) {
-			return new TCPOSCTransmitter(c, localAddress);
+		} else if (protocol.equals(TCP) || protocol.equals(TCP_SLIP)) {
+			return new TCPOSCTransmitter(c, protocol, localAddress);
 
 		} else {
 			throw new IllegalArgumentException(NetUtil.getResourceString("errUnknownProtocol") + protocol);
@@ -348,7 +361,31 @@ public abstract class OSCTransmitter
 	 */
 	public static OSCTransmitter newUsing(OSCPacketCodec c, SocketChannel sch)
 			throws IOException {
-		return new TCPOSCTransmitter(c, sch);
+		return new TCPOSCTransmitter(c, TCP, sch);
+	}
+
+	/**
+	 *	Creates a new instance of an <code>OSCTransmitter</code>, using
+	 *	a specific codec and stream protocol on a given channel. This is
+	 *	the same as <code>newUsing( c, sch )</code>, but allows to choose
+	 *	the framing of the packets.
+	 *
+	 *	@param	c			the codec to use
+	 *	@param	protocol	the protocol to use, either <code>TCP</code> or <code>TCP_SLIP</code>
+	 *	@param	sch			the <code>SocketChannel</code> to use as TCP socket.
+	 *	@return				the newly created transmitter
+	 *
+	 *	@throws	IOException	if a networking error occurs while configuring the socket
+	 *	@throws	IllegalArgumentException	if an illegal protocol is used
+	 *
+	 *	@see	OSCChannel#TCP_SLIP
+	 */
+	public static OSCTransmitter newUsing(OSCPacketCodec c, String protocol, SocketChannel sch)
+			throws IOException {
+		if (!(protocol.equals(TCP) || protocol.equals(TCP_SLIP))) {
+			throw new IllegalArgumentException(NetUtil.getResourceString("errUnknownProtocol") + protocol);
+		}
+		return new TCPOSCTransmitter(c, protocol, sch);
 	}
 
 	public String getProtocol()
@@ -395,6 +432,90 @@ public abstract class OSCTransmitter
 		return c;
 	}
 	
+	/**
+	 *	Specifies options such as <code>TCP_NODELAY</code> or the socket buffer
+	 *	sizes. They are applied immediately if the transmitter is connected, and
+	 *	otherwise when the socket is created in <code>connect</code> (for TCP
+	 *	before the connection is made).
+	 *
+	 *	@param	options	the options to use, or <code>null</code> to use the
+	 *					operating system's defaults for new sockets
+	 *
+	 *	@throws	IOException	if an option cannot be applied to the connected socket
+	 *
+	 *	@see	OSCSocketOptions
+	 */
+	public void setSocketOptions(OSCSocketOptions options)
+			throws IOException {
+		synchronized (sync) {
+			socketOptions = options;
+			final SelectableChannel ch = getChannel();
+			if ((options != null) && (ch != null) && ch.isOpen()) options.applyTo(ch);
+		}
+	}
+
+	/**
+	 *	Queries the socket options.
+	 *
+	 *	@return	the options, or <code>null</code> if the defaults are used
+	 */
+	public OSCSocketOptions getSocketOptions() {
+		synchronized (sync) {
+			return socketOptions;
+		}
+	}
+
+	/**
+	 *	Turns write coalescing on or off. By default, each packet is
+	 *	written to the channel when it is sent. In coalescing mode, sent
+	 *	packets are collected in the transmitter's buffer and written together,
+	 *	when the buffer is full, when <code>flush</code> is called, or at the
+	 *	latest <code>maxDelay</code> milliseconds after the first packet was
+	 *	collected. This trades latency for throughput when many small packets are sent.
+	 *	Turning coalescing off flushes the collected packets.
+	 *	The flushes after <code>maxDelay</code> run on a background thread; if the
+	 *	peer stops reading, only the flushes of this transmitter are held up.
+	 *	<p>
+	 *	This is only supported for <code>TCP</code>.
+	 *
+	 *	@param	onOff		<code>true</code> to collect packets
+	 *	@param	maxDelay	the maximum time in milliseconds a packet is held back, or
+	 *						<code>0</code> to hold packets until the buffer is full
+	 *						or <code>flush</code> is called
+	 *
+	 *	@throws	IOException	if flushing the collected packets fails
+	 *	@throws	UnsupportedOperationException	in <code>UDP</code> mode
+	 *	@throws	IllegalArgumentException		if the delay is negative
+	 *
+	 *	@see	#flush()
+	 */
+	public void setCoalescing(boolean onOff, int maxDelay)
+			throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 *	Queries whether write coalescing is on.
+	 *
+	 *	@return	<code>true</code> if sent packets are collected
+	 *
+	 *	@see	#setCoalescing( boolean, int )
+	 */
+	public boolean isCoalescing() {
+		return false;
+	}
+
+	/**
+	 *	Writes the packets collected in coalescing mode to the channel.
+	 *	If coalescing is off, this does nothing.
+	 *
+	 *	@throws	IOException	if a write error or network error occurs
+	 *
+	 *	@see	#setCoalescing( boolean, int )
+	 */
+	public void flush()
+			throws IOException { /* empty */ }
+
 	public void addConnectionListener(OSCConnectionListener e) {
 		synchronized (connListeners) {
 			connListeners.add(e);
@@ -513,6 +634,95 @@ public abstract class OSCTransmitter
 	 */
 	public abstract void send(OSCPacketCodec c, OSCPacket p) throws IOException;
 
+	/**
+	 *	Sends several OSC packets (bundles or messages) to the given
+	 *	network address, using the current codec. Each packet is sent
+	 *	separately, in the order of the collection, but the transmitter is
+	 *	locked only once for the whole batch, so no other thread can send
+	 *	in between.
+	 *
+	 *	@param	packets	the packets to send
+	 *	@param	target	the target address to send the packets to
+	 *
+	 *	@throws	IOException	if a write error, OSC encoding error,
+	 *						buffer overflow error or network error occurs. Packets
+	 *						following the failing one are not sent
+	 */
+	public void send(Collection<? extends OSCPacket> packets, SocketAddress target)
+			throws IOException {
+		synchronized (sync) {
+			final OSCPacketCodec c0 = c;
+			for (OSCPacket p : packets) {
+				send(c0, p, target);
+			}
+		}
+	}
+
+	/**
+	 *	Sends an OSC packet (bundle or message) to several
+	 *	network addresses, using the current codec. For UDP, the packet
+	 *	is encoded only once and the same bytes are sent to each target.
+	 *	If sending to one target fails, the remaining targets are still served.
+	 *
+	 *	@param	p		the packet to send
+	 *	@param	targets	the target addresses to send the packet to
+	 *
+	 *	@throws	IOException	if a write error, OSC encoding error,
+	 *						buffer overflow error or network error occurs.
+	 *						If several targets fail, the last exception is thrown
+	 */
+	public void sendTo(OSCPacket p, Collection<? extends SocketAddress> targets)
+			throws IOException {
+		IOException ex = null;
+		synchronized (sync) {
+			final OSCPacketCodec c0 = c;
+			for (SocketAddress t : targets) {
+				try {
+					send(c0, p, t);
+				} catch (OSCException e1) {    // the same for all targets
+					throw e1;
+				} catch (IOException e1) {
+					ex = e1;
+				}
+			}
+		}
+		if (ex != null) throw ex;
+	}
+
+	/**
+	 *	Sends an already encoded OSC packet to the given
+	 *	network address. The packet is made up of the bytes
+	 *	between the buffer's position and limit, for example
+	 *	as written by an <code>OSCMessageWriter</code>. For TCP, the
+	 *	packet size is prepended. When this method returns,
+	 *	the buffer's position equals its limit.
+	 *
+	 *	@param	b		the buffer containing the encoded packet
+	 *	@param	target	the target address to send the packet to
+	 *
+	 *	@throws	IOException	if a write error or network error occurs
+	 *
+	 *	@see	OSCMessageWriter
+	 */
+	public abstract void send(ByteBuffer b, SocketAddress target) throws IOException;
+
+	/**
+	 *	Sends an already encoded OSC packet to the default
+	 *	network address. The default address is the one specified
+	 *	using the <code>setTarget</code> method.
+	 *
+	 *	@param	b		the buffer containing the encoded packet
+	 *
+	 *	@throws	IOException				if a write error or network error occurs
+	 *	@throws	NullPointerException	if no default address was specified
+	 *
+	 *	@see	#send( ByteBuffer, SocketAddress )
+	 */
+	public final void send(ByteBuffer b)
+			throws IOException {
+		send(b, target);
+	}
+
 	public void setBufferSize(int size) {
 		synchronized (sync) {
 			if (bufSize != size) {
@@ -535,19 +745,110 @@ public abstract class OSCTransmitter
 
 	public void dispose()
 	{
-		byteBuf	= null;
+		synchronized (sync) {
+			OSCBufferPool.getDefaultPool().release(byteBuf);
+			byteBuf		= null;
+			allocBuf	= true;
+		}
 	}
 
 	/** <b>Synchronization:</b>	caller must ensure synchronization */
 	protected void checkBuffer() {
 		if (allocBuf) {
-			byteBuf = ByteBuffer.allocateDirect(bufSize);
+			final OSCBufferPool pool = OSCBufferPool.getDefaultPool();
+			pool.release(byteBuf);
+			byteBuf = pool.acquire(Math.min(bufSize, OSCBufferPool.MIN_CAPACITY << 1));
 			allocBuf = false;
 		}
 	}
+
+	/**
+	 *	Encodes a packet into the buffer, beginning at a given offset.
+	 *	If the packet does not fit, the buffer is replaced by a larger
+	 *	one from the pool, up to the buffer size.
+	 *	<p>
+	 *	<b>Synchronization:</b>	caller must ensure synchronization
+	 *
+	 *	@throws	BufferOverflowException	if the packet exceeds the buffer size
+	 */
+	protected void encodeIntoBuffer(OSCPacketCodec c, OSCPacket p, int off)
+			throws IOException {
+		checkBuffer();
+		while (true) {
+			byteBuf.clear();
+			if (byteBuf.capacity() > bufSize) byteBuf.limit(bufSize);
+			byteBuf.position(off);
+			try {
+				c.encode(p, byteBuf);
+				return;
+			} catch (BufferOverflowException e1) {
+				if (byteBuf.capacity() >= bufSize) throw e1;
+				final OSCBufferPool pool	= OSCBufferPool.getDefaultPool();
+				final ByteBuffer oldBuf		= byteBuf;
+				byteBuf = pool.acquire(Math.min(bufSize, oldBuf.capacity() << 1));
+				pool.release(oldBuf);
+			}
+		}
+	}
 	
 	protected abstract SelectableChannel getChannel();
 
+	/*
+	 *	Runs a task after a delay on the thread which flushes
+	 *	coalescing transmitters. The thread is created on demand.
+	 *	The task must not block, as it would delay the flushes of
+	 *	all other connections; see executeFlush.
+	 */
+	static ScheduledFuture<?> scheduleFlush(Runnable task, int delay) {
+		final ScheduledExecutorService timer;
+		synchronized (OSCTransmitter.class) {
+			if (flushTimer == null) {
+				final ScheduledThreadPoolExecutor exec = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						return NetUtil.newThread(null, r, "OSCFlushTimer");
+					}
+				});
+				flushTimer = exec;
+			}
+			timer = flushTimer;
+		}
+		return timer.schedule(task, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 *	Runs a flush which may block, e.g. a write to a peer which
+	 *	has stopped reading, on a thread of its own. Threads are
+	 *	created on demand and terminate when idle, so only flushes
+	 *	blocked on a stalled peer occupy a thread each.
+	 */
+	static void executeFlush(Runnable task) {
+		final ExecutorService workers;
+		synchronized (OSCTransmitter.class) {
+			if (flushWorkers == null) {
+				flushWorkers = Executors.newCachedThreadPool(new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						return NetUtil.newThread(null, r, "OSCFlush");
+					}
+				});
+			}
+			workers = flushWorkers;
+		}
+		workers.execute(task);
+	}
+
+	/** <b>Synchronization:</b>	caller must ensure synchronization */
+	protected void dumpEncoded(ByteBuffer b) {
+		printStream.print("s: ");
+		if ((dumpMode & kDumpText) != 0) {
+			try {
+				OSCPacket.printTextOn(printStream, c.decode(b.duplicate()));
+			} catch (IOException e1) {
+				printStream.println(e1.getLocalizedMessage());
+			}
+		}
+		if ((dumpMode & kDumpHex) != 0) OSCPacket.printHexOn(printStream, b.duplicate());
+	}
+
 	// --------------------- internal classes ---------------------
 
 	private static class UDPOSCTransmitter
@@ -593,6 +894,8 @@ public abstract class OSCTransmitter
 				}
 				if (dch == null) {
 					final DatagramChannel newCh = DatagramChannel.open();
+					if (reusePort) NetUtil.setReusePort(newCh);
+					if (socketOptions != null) socketOptions.applyTo(newCh);
 					newCh.socket().bind(localAddress);
 
 					// Some systems, explicitly Android 7, don't enable SO_BROADCAST by default
@@ -631,7 +934,6 @@ public abstract class OSCTransmitter
 		}
 
 		public void dispose() {
-			super.dispose();
 			if (dch != null) {
 				try {
 					dch.close();
@@ -648,6 +950,7 @@ public abstract class OSCTransmitter
 					l.onDisconnected(localAddress, targetI);
 				}
 			}
+			super.dispose();	// after closing the channel, so a blocked send releases the buffer
 		}
 
 		public void send(OSCPacketCodec c, OSCPacket p)
@@ -661,9 +964,7 @@ public abstract class OSCTransmitter
 				synchronized (sync) {
 					if (dch == null) throw new IOException(NetUtil.getResourceString("errChannelNotConnected"));
 
-					checkBuffer();
-					byteBuf.clear();
-					c.encode(p, byteBuf);
+					encodeIntoBuffer(c, p, 0);
 					byteBuf.flip();
 
 					if (dumpMode != kDumpOff) {
@@ -682,18 +983,93 @@ public abstract class OSCTransmitter
 						p instanceof OSCMessage ? ((OSCMessage) p).getName() : p.getClass().getName());
 			}
 		}
+
+		public void send(ByteBuffer b, SocketAddress target)
+				throws IOException {
+			synchronized (sync) {
+				if (dch == null) throw new IOException(NetUtil.getResourceString("errChannelNotConnected"));
+
+				if (dumpMode != kDumpOff) dumpEncoded(b);
+
+				dch.send(b, target);
+			}
+		}
+
+		public void sendTo(OSCPacket p, Collection<? extends SocketAddress> targets)
+				throws IOException {
+			IOException ex = null;
+			try {
+				synchronized (sync) {
+					if (dch == null) throw new IOException(NetUtil.getResourceString("errChannelNotConnected"));
+
+					encodeIntoBuffer(getCodec(), p, 0);
+					byteBuf.flip();
+
+					if (dumpMode != kDumpOff) {
+						printStream.print("s: ");
+						if ((dumpMode & kDumpText) != 0) OSCPacket.printTextOn(printStream, p);
+						if ((dumpMode & kDumpHex) != 0) {
+							OSCPacket.printHexOn(printStream, byteBuf);
+							byteBuf.flip();
+						}
+					}
+
+					for (SocketAddress t : targets) {
+						byteBuf.rewind();
+						try {
+							dch.send(byteBuf, t);
+						} catch (IOException e1) {
+							ex = e1;
+						}
+					}
+				}
+			} catch (BufferOverflowException e1) {
+				throw new OSCException(OSCException.BUFFER,
+						p instanceof OSCMessage ? ((OSCMessage) p).getName() : p.getClass().getName());
+			}
+			if (ex != null) throw ex;
+		}
 	}
 
 	private static class TCPOSCTransmitter
 			extends OSCTransmitter {
 		private SocketChannel sch;
+		private final boolean		slip;		// frames are enclosed in END bytes instead of preceded by their size
+		private final int			headerSize;
+		private final ByteBuffer	sizeBuf		= ByteBuffer.allocate(4);
+		private final ByteBuffer[]	gatherBufs	= new ByteBuffer[] { sizeBuf, null };
+
+		private boolean				coalescing	= false;
+		private int					maxDelay	= 0;
+		private int					pending		= 0;	// size of the collected frames in byteBuf
+		private int					pendingStart	= 0;	// where the first collected frame begins
+		private ScheduledFuture<?>	flushTask	= null;
+		private final Runnable		flushWork	= new Runnable() {
+			public void run() {
+				try {
+					flush();
+				} catch (IOException e1) {
+					NetUtil.log(Level.WARNING, "", e1);
+				}
+			}
+		};
+		// runs on the shared timer, which must not block in a write
+		private final Runnable		flushRunnable	= new Runnable() {
+			public void run() {
+				executeFlush(flushWork);
+			}
+		};
 
-		protected TCPOSCTransmitter(OSCPacketCodec c, InetSocketAddress localAddress) {
-			super(c, TCP, localAddress, true);
+		protected TCPOSCTransmitter(OSCPacketCodec c, String protocol, InetSocketAddress localAddress) {
+			super(c, protocol, localAddress, true);
+			slip		= protocol.equals(TCP_SLIP);
+			headerSize	= slip ? 1 : 4;
 		}
 
-		protected TCPOSCTransmitter(OSCPacketCodec c, SocketChannel sch) {
-			super(c, TCP, new InetSocketAddress(sch.socket().getLocalAddress(), sch.socket().getLocalPort()), false);
+		protected TCPOSCTransmitter(OSCPacketCodec c, String protocol, SocketChannel sch) {
+			super(c, protocol, new InetSocketAddress(sch.socket().getLocalAddress(), sch.socket().getLocalPort()), false);
+			slip		= protocol.equals(TCP_SLIP);
+			headerSize	= slip ? 1 : 4;
 
 			this.sch = sch;
 
@@ -732,6 +1108,7 @@ public abstract class OSCTransmitter
 				}
 				if (sch == null) {
 					final SocketChannel newCh = SocketChannel.open();
+					if (socketOptions != null) socketOptions.applyTo(newCh);
 					newCh.socket().bind(localAddress);
 					sch = newCh;
 				}
@@ -760,13 +1137,20 @@ public abstract class OSCTransmitter
 		}
 
 		public void dispose() {
-			super.dispose();
-			if (sch != null) {
+			// close the channel before locking, so that a send or flush
+			// blocked in a write while holding the lock fails and releases it
+			final SocketChannel ch = sch;
+			if (ch != null) {
 				try {
-					sch.close();
+					ch.close();
 				} catch (IOException e1) {
 					NetUtil.log(Level.SEVERE, "", e1);
 				}
+			}
+			synchronized (sync) {
+				discardPending();	// a flush could block forever on a stalled peer
+			}
+			if (ch != null) {
 				sch = null;
 				final InetSocketAddress targetI = (target instanceof InetSocketAddress) ? (InetSocketAddress) target : null;
 				final OSCConnectionListener[] arrConn;
@@ -779,6 +1163,7 @@ public abstract class OSCTransmitter
 					l.onDisconnected(localAddress, targetI);
 				}
 			}
+			super.dispose();	// after closing the channel, so a blocked send releases the buffer
 		}
 
 		public void send(OSCPacketCodec c, OSCPacket p, SocketAddress target)
@@ -792,35 +1177,299 @@ public abstract class OSCTransmitter
 
 		public void send(OSCPacketCodec c, OSCPacket p)
 				throws IOException {
-			final int len;
+			synchronized (sync) {
+				if (sch == null) throw new IOException(NetUtil.getResourceString("errChannelNotConnected"));
 
-			try {
-				synchronized (sync) {
-					if (sch == null) throw new IOException(NetUtil.getResourceString("errChannelNotConnected"));
+				if (coalescing) {
+					collect(c, p);
+					armFlushTimer();
+				} else {
+					sendNow(c, p);
+				}
+			}
+		}
 
-					checkBuffer();
-					byteBuf.clear();
-					byteBuf.position(4);
-					c.encode(p, byteBuf);
-					len = byteBuf.position() - 4;
-					byteBuf.flip();
-					byteBuf.putInt(0, len);
+		public void setCoalescing(boolean onOff, int maxDelay)
+				throws IOException {
+			if (maxDelay < 0) throw new IllegalArgumentException(String.valueOf(maxDelay));
+			synchronized (sync) {
+				coalescing		= onOff;
+				this.maxDelay	= maxDelay;
+				if (!onOff) flush();
+			}
+		}
 
-					if (dumpMode != kDumpOff) {
-						printStream.print("s: ");
-						if ((dumpMode & kDumpText) != 0) OSCPacket.printTextOn(printStream, p);
-						if ((dumpMode & kDumpHex) != 0) {
-							OSCPacket.printHexOn(printStream, byteBuf);
-							byteBuf.flip();
-						}
-					}
+		public boolean isCoalescing() {
+			synchronized (sync) {
+				return coalescing;
+			}
+		}
 
-					sch.write(byteBuf);
+		public void flush()
+				throws IOException {
+			synchronized (sync) {
+				if (sch == null) {
+					discardPending();
+				} else {
+					writePending();
 				}
+			}
+		}
+
+		/** <b>Synchronization:</b>	caller must ensure synchronization */
+		private void sendNow(OSCPacketCodec c, OSCPacket p)
+				throws IOException {
+			if (pending > 0) writePending();	// keep the order, and the packet is encoded at zero
+			if (slip) {    // the packet is escaped where it was encoded
+				if (!appendFrame(c, p)) throw new OSCException(OSCException.BUFFER,
+						p instanceof OSCMessage ? ((OSCMessage) p).getName() : p.getClass().getName());
+				writePending();
+				return;
+			}
+			try {
+				encodeIntoBuffer(c, p, 0);
+				byteBuf.flip();
+
+				if (dumpMode != kDumpOff) {
+					printStream.print("s: ");
+					if ((dumpMode & kDumpText) != 0) OSCPacket.printTextOn(printStream, p);
+					if ((dumpMode & kDumpHex) != 0) {
+						OSCPacket.printHexOn(printStream, byteBuf);
+						byteBuf.flip();
+					}
+				}
+
+				writeFrame(byteBuf);
 			} catch (BufferOverflowException e1) {
 				throw new OSCException(OSCException.BUFFER,
 						p instanceof OSCMessage ? ((OSCMessage) p).getName() : p.getClass().getName());
 			}
 		}
+
+		/*
+		 *	Encodes the packets one after the other into the buffer, each
+		 *	in its frame, and writes them with a single call
+		 *	whenever the buffer is full.
+		 */
+		public void send(Collection<? extends OSCPacket> packets, SocketAddress target)
+				throws IOException {
+			synchronized (sync) {
+				if ((target != null) && !target.equals(this.target))
+					throw new IllegalStateException(NetUtil.getResourceString("errNotBoundToAddress") + target);
+				if (sch == null) throw new IOException(NetUtil.getResourceString("errChannelNotConnected"));
+
+				final OSCPacketCodec c = getCodec();
+				try {
+					for (OSCPacket p : packets) {
+						collect(c, p);
+					}
+				} finally {	// if a packet fails, those before it are sent nevertheless
+					if (coalescing) {
+						armFlushTimer();
+					} else {
+						writePending();
+					}
+				}
+			}
+		}
+
+		public void send(ByteBuffer b, SocketAddress target)
+				throws IOException {
+			synchronized (sync) {
+				if ((target != null) && !target.equals(this.target))
+					throw new IllegalStateException(NetUtil.getResourceString("errNotBoundToAddress") + target);
+				if (sch == null) throw new IOException(NetUtil.getResourceString("errChannelNotConnected"));
+
+				if (dumpMode != kDumpOff) dumpEncoded(b);
+
+				if (coalescing || slip) {
+					if (!appendRaw(b)) {
+						writePending();
+						if (!appendRaw(b)) {
+							if (slip) throw new OSCException(OSCException.BUFFER, String.valueOf(b.remaining()));
+							writeFrame(b);
+						}
+					}
+					if (coalescing) {
+						armFlushTimer();
+					} else {
+						writePending();
+					}
+				} else {
+					writePending();	// must not be overtaken
+					writeFrame(b);
+				}
+			}
+		}
+
+		/*
+		 *	Appends a packet in its frame to the frames collected
+		 *	in the buffer. If it does not fit, the collected frames are
+		 *	written first, and a packet that is too large to be collected
+		 *	at all is written on its own.
+		 *
+		 *	Synchronization: caller must ensure synchronization
+		 */
+		private void collect(OSCPacketCodec c, OSCPacket p)
+				throws IOException {
+			if (!appendFrame(c, p)) {
+				writePending();
+				if (!appendFrame(c, p)) sendNow(c, p);
+			}
+		}
+
+		private boolean appendFrame(OSCPacketCodec c, OSCPacket p)
+				throws IOException {
+			if (pending == 0) checkBuffer();
+			final int bufSize	= getBufferSize();
+			// the codec pads relative to the buffer, so a packet must begin at a multiple of four.
+			// for SLIP, the gap is filled with END bytes, which receivers ignore as empty frames
+			final int off		= slip ? (pending + 4) & ~3 : pending + 4;
+			while (true) {
+				byteBuf.clear();
+				if (byteBuf.capacity() > bufSize) byteBuf.limit(bufSize);
+				if (off <= byteBuf.limit()) {
+					byteBuf.position(off);
+					try {
+						c.encode(p, byteBuf);
+						break;
+					} catch (BufferOverflowException e1) { /* grow or give up */ }
+				}
+				if (!growBuffer()) return false;
+			}
+			final int start	= pending;
+			final int end	= byteBuf.position();
+			if (dumpMode != kDumpOff) {
+				printStream.print("s: ");
+				if ((dumpMode & kDumpText) != 0) OSCPacket.printTextOn(printStream, p);
+				if ((dumpMode & kDumpHex) != 0) {
+					final ByteBuffer dup = byteBuf.duplicate();
+					dup.limit(end).position(off);
+					OSCPacket.printHexOn(printStream, dup);
+				}
+			}
+			if (slip) {
+				pending = escapeFrame(off, end - off);
+				for (int i = start; i < off; i++) {
+					byteBuf.put(i, OSCSlip.END);
+				}
+				if (start == 0) pendingStart = off - 1;	// one END suffices
+			} else {
+				byteBuf.putInt(start, end - off);
+				pending = end;
+			}
+			return true;
+		}
+
+		/*
+		 *	Escapes a packet encoded at off and appends the closing
+		 *	END. The escaped frame may exceed the buffer size.
+		 *
+		 *	@return	the end of the frame
+		 */
+		private int escapeFrame(int off, int len) {
+			final int n		= OSCSlip.countSpecial(byteBuf, off, off + len);
+			final int end	= off + len + n + 1;
+			if (end > byteBuf.capacity()) replaceBuffer(end, off + len);
+			byteBuf.clear();
+			OSCSlip.escapeInPlace(byteBuf, off, len, n);
+			byteBuf.put(end - 1, OSCSlip.END);
+			return end;
+		}
+
+		private boolean appendRaw(ByteBuffer b) {
+			if (pending == 0) checkBuffer();
+			if (pending + headerSize + b.remaining() > getBufferSize()) return false;
+			if (slip) {
+				final int size = pending + b.remaining() + OSCSlip.countSpecial(b, b.position(), b.limit()) + 2;
+				if (size > byteBuf.capacity()) replaceBuffer(size, pending);
+				byteBuf.clear();
+				byteBuf.position(pending);
+				byteBuf.put(OSCSlip.END);
+				OSCSlip.escape(b, byteBuf);
+				byteBuf.put(OSCSlip.END);
+				pending = size;
+				return true;
+			}
+			final int size = pending + 4 + b.remaining();
+			while (size > byteBuf.capacity()) {
+				if (!growBuffer()) return false;
+			}
+			byteBuf.clear();
+			byteBuf.position(pending);
+			byteBuf.putInt(b.remaining());
+			byteBuf.put(b);
+			pending = size;
+			return true;
+		}
+
+		// replaces the buffer by a larger one from the pool, keeping the collected frames
+		private boolean growBuffer() {
+			final int bufSize = getBufferSize();
+			if (byteBuf.capacity() >= bufSize) return false;
+			replaceBuffer(Math.min(bufSize, byteBuf.capacity() << 1), pending);
+			return true;
+		}
+
+		// replaces the buffer, keeping its first numKeep bytes
+		private void replaceBuffer(int capacity, int numKeep) {
+			final OSCBufferPool pool	= OSCBufferPool.getDefaultPool();
+			final ByteBuffer oldBuf		= byteBuf;
+			byteBuf = pool.acquire(capacity);
+			oldBuf.limit(numKeep).position(0);
+			byteBuf.put(oldBuf);
+			pool.release(oldBuf);
+		}
+
+		private void armFlushTimer() {
+			if ((maxDelay > 0) && (pending > 0) && (flushTask == null)) {
+				flushTask = scheduleFlush(flushRunnable, maxDelay);
+			}
+		}
+
+		private void writePending()
+				throws IOException {
+			if (flushTask != null) {
+				flushTask.cancel(false);
+				flushTask = null;
+			}
+			if (pending == 0) return;
+			byteBuf.limit(pending).position(pendingStart);
+			pending			= 0;
+			pendingStart	= 0;
+			writeFully(byteBuf);
+		}
+
+		private void discardPending() {
+			if (flushTask != null) {
+				flushTask.cancel(false);
+				flushTask = null;
+			}
+			pending			= 0;
+			pendingStart	= 0;
+		}
+
+		// writes the size header and the packet with gathering writes
+		// until the channel has taken all bytes
+		private void writeFrame(ByteBuffer b)
+				throws IOException {
+			sizeBuf.clear();
+			sizeBuf.putInt(0, b.remaining());
+			gatherBufs[1] = b;
+			try {
+				while (b.hasRemaining() || sizeBuf.hasRemaining()) {
+					sch.write(gatherBufs);
+				}
+			} finally {
+				gatherBufs[1] = null;
+			}
+		}
+
+		private void writeFully(ByteBuffer b)
+				throws IOException {
+			while (b.hasRemaining()) {
+				sch.write(b);
+			}
+		}
 	}
 }
@@ -0,0 +1,709 @@
+/*
+ *  SelectorTCPOSCServer.scala
+ *  (NetUtil)
+ *
+ *  Copyright (c) 2004-2018 Hanns Holger Rutz. All rights reserved.
+ *
+ *	This software is published under the GNU Lesser General Public License v2.1+
+ *
+ *
+ *	For further information, please contact Hanns Holger Rutz at
+ *	contact@sciss.de
+ */
+
+package de.sciss.net;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.logging.Level;
+
+/*
+ *	A TCP server which serves all connections from a fixed number
+ *	of event loops instead of one receiving thread per connection.
+ *	Each loop is a thread waiting on its own <code>Selector</code>.
+ *	The first loop also accepts the connections and distributes them
+ *	round robin. Reading is non-blocking, each connection feeds what it
+ *	reads into its own OSCFrameDecoder. Sending writes directly to the
+ *	channel as long as nothing is queued; what the channel does not take
+ *	is queued and written by the connection's loop when the channel
+ *	becomes writable again, so a slow client never blocks the sender.
+ */
+final class SelectorTCPOSCServer
+		extends OSCServer {
+
+	private static final int						READ_BUFFER_SIZE	= 65536;	// bytes per read, then serve the other connections
+	private static final int						MAX_QUEUED_PACKETS	= 64;	// times the buffer size, then drop the client
+	private static final int						MAX_GATHER			= 64;	// buffers per gathering write
+
+	private final ServerSocketChannel				ssch;
+	private final int								numLoops;
+	private final boolean							slip;	// TCP_SLIP framing
+
+	private final Map<SocketAddress, Connection>	mapConn			= new HashMap<SocketAddress, Connection>();	// key = remote address
+	private final Object							connSync		= new Object();	// syncs mapConn
+
+	private final Object							listenerSync	= new Object();
+	private volatile OSCListener[]					listeners		= new OSCListener[0];	// copy-on-write
+
+	private final Object							startStopSync	= new Object();
+	private volatile Loop[]							loops			= null;
+	private volatile boolean						isListening		= false;
+	private int										nextLoop		= 0;	// accepting thread only
+
+	private volatile int							bufSize			= DEFAULTBUFSIZE;
+	private volatile boolean						coalescing		= false;
+	private volatile int							maxDelay		= 0;
+
+	private volatile int							inMode			= kDumpOff;
+	private volatile int							outMode			= kDumpOff;
+	private volatile PrintStream					inStream		= System.err;
+	private volatile PrintStream					outStream		= System.err;
+
+	SelectorTCPOSCServer(OSCPacketCodec c, String protocol, InetSocketAddress localAddress, int numLoops)
+			throws IOException {
+		super(c, protocol);
+		this.numLoops	= numLoops;
+		slip			= protocol.equals(TCP_SLIP);
+
+		ssch = ServerSocketChannel.open();
+		ssch.socket().bind(localAddress);
+	}
+
+	public InetSocketAddress getLocalAddress()
+			throws IOException {
+		final ServerSocket ss = ssch.socket();
+		return getLocalAddress(ss.getInetAddress(), ss.getLocalPort());
+	}
+
+	public void addOSCListener(OSCListener listener) {
+		synchronized (listenerSync) {
+			listeners = CopyOnWrite.add(listeners, listener);
+		}
+	}
+
+	public void removeOSCListener(OSCListener listener) {
+		synchronized (listenerSync) {
+			listeners = CopyOnWrite.remove(listeners, listener);
+		}
+	}
+
+	public void setCodec(OSCPacketCodec c) {
+		synchronized (connSync) {
+			for (Connection conn : mapConn.values()) {
+				if (conn.codec == defaultCodec) conn.codec = c;
+			}
+			super.setCodec(c);
+		}
+	}
+
+	public void setCodec(OSCPacketCodec c, SocketAddress target)
+			throws IOException {
+		getConnection(target).codec = c;
+	}
+
+	public OSCPacketCodec getCodec(SocketAddress target)
+			throws IOException {
+		return getConnection(target).codec;
+	}
+
+	public void start()
+			throws IOException {
+		synchronized (startStopSync) {
+			checkNotInLoop();
+			if (isListening) {
+				boolean allAlive = true;
+				for (Loop l : loops) allAlive &= l.thread.isAlive();
+				if (allAlive) return;
+				stop();
+			}
+
+			final Loop[] newLoops = new Loop[numLoops];
+			try {
+				for (int i = 0; i < numLoops; i++) {
+					newLoops[i] = new Loop(i);
+				}
+				ssch.configureBlocking(false);
+				ssch.register(newLoops[0].sel, SelectionKey.OP_ACCEPT);
+			} catch (IOException e1) {
+				for (Loop l : newLoops) {
+					if (l != null) l.sel.close();
+				}
+				throw e1;
+			}
+			loops		= newLoops;
+			nextLoop	= 0;
+			isListening	= true;
+			for (Loop l : newLoops) {
+				l.thread.start();
+			}
+		}
+	}
+
+	public void stop()
+			throws IOException {
+		synchronized (startStopSync) {
+			checkNotInLoop();
+			if (!isListening) return;
+			isListening = false;
+			final Loop[] oldLoops = loops;
+			loops = null;
+			for (Loop l : oldLoops) {
+				l.sel.wakeup();
+			}
+			try {
+				for (Loop l : oldLoops) {
+					l.thread.join(5000);
+					if (l.thread.isAlive()) {
+						NetUtil.log(Level.WARNING, "TCPServerLoop.stop : loop does not terminate (" + this.hashCode() + ")");
+					}
+				}
+			} catch (InterruptedException e1) {
+				NetUtil.log(Level.WARNING, "", e1);
+			}
+			for (Loop l : oldLoops) {
+				l.sel.close();	// deregisters the server channel and all connections
+			}
+			final List<Connection> conns;
+			synchronized (connSync) {
+				conns = new ArrayList<Connection>(mapConn.values());
+			}
+			for (Connection conn : conns) {
+				conn.close();
+			}
+		}
+	}
+
+	public boolean isActive() {
+		return isListening;
+	}
+
+	public void send(OSCPacket p, SocketAddress target)
+			throws IOException {
+		getConnection(target).send(p);
+	}
+
+	public void sendAll(OSCPacket p)
+			throws IOException {
+		final List<Connection> conns;
+		synchronized (connSync) {
+			conns = new ArrayList<Connection>(mapConn.values());
+		}
+		// the frame is encoded once per codec, and each client gets a duplicate of it
+		final Map<OSCPacketCodec, ByteBuffer> frames = new HashMap<OSCPacketCodec, ByteBuffer>(4);
+		IOException ex = null;
+		for (Connection conn : conns) {
+			try {
+				final OSCPacketCodec c = conn.codec;
+				ByteBuffer frame = frames.get(c);
+				if (frame == null) {
+					if (slip) {
+						final ByteBuffer b = encodeShared(c, p, 0, bufSize);
+						dumpOutgoing(p, b);
+						frame = OSCSlip.encodeShared(b);
+					} else {
+						frame = encodeShared(c, p, 4, bufSize);
+						dumpOutgoing(p, frame);
+					}
+					frames.put(c, frame);
+				}
+				conn.enqueue(frame.duplicate());
+			} catch (IOException e1) {
+				ex = e1;
+			}
+		}
+		if (ex != null) throw ex;
+	}
+
+	/*
+	 *	In coalescing mode, sent packets are only queued, and the connection's
+	 *	loop writes the queue with one gathering write when the delay has passed,
+	 *	the queue has reached the buffer size, or flush is called.
+	 *	Flushing therefore returns before the packets are written.
+	 */
+	public void setCoalescing(boolean onOff, int maxDelay) {
+		if (maxDelay < 0) throw new IllegalArgumentException(String.valueOf(maxDelay));
+		this.maxDelay	= maxDelay;
+		coalescing		= onOff;
+		if (!onOff) flush();
+	}
+
+	public boolean isCoalescing() {
+		return coalescing;
+	}
+
+	public void flush() {
+		final List<Connection> conns;
+		synchronized (connSync) {
+			conns = new ArrayList<Connection>(mapConn.values());
+		}
+		for (Connection conn : conns) {
+			conn.requestFlush();
+		}
+	}
+
+	public void dispose() {
+		try {
+			stop();
+		} catch (IOException e1) { /* ignored */ }
+
+		try {
+			ssch.close();
+		} catch (IOException e1) {
+			e1.printStackTrace();
+		}
+	}
+
+	public void setBufferSize(int size) {
+		bufSize = size;
+	}
+
+	public int getBufferSize() {
+		return bufSize;
+	}
+
+	public void dumpIncomingOSC(int mode, PrintStream stream) {
+		inStream	= stream == null ? System.err : stream;
+		inMode		= mode;
+	}
+
+	public void dumpOutgoingOSC(int mode, PrintStream stream) {
+		outStream	= stream == null ? System.err : stream;
+		outMode		= mode;
+	}
+
+	private void dumpOutgoing(OSCPacket p, ByteBuffer frame) {
+		final int mode = outMode;
+		if (mode != kDumpOff) {
+			final PrintStream stream = outStream;
+			stream.print("s: ");
+			if ((mode & kDumpText) != 0) OSCPacket.printTextOn(stream, p);
+			if ((mode & kDumpHex) != 0) OSCPacket.printHexOn(stream, frame.duplicate());
+		}
+	}
+
+	// returns a buffer to the pool, unless it is shared by several clients
+	private static void recycle(ByteBuffer b) {
+		if (!b.isReadOnly()) OSCBufferPool.getDefaultPool().release(b);
+	}
+
+	private Connection getConnection(SocketAddress target) {
+		final Connection conn;
+		synchronized (connSync) {
+			conn = mapConn.get(target);
+		}
+		if (conn == null) throw new NotYetConnectedException();
+		return conn;
+	}
+
+	private void checkNotInLoop() {
+		final Loop[] l = loops;
+		if (l == null) return;
+		for (Loop loop : l) {
+			if (Thread.currentThread() == loop.thread)
+				throw new IllegalStateException(NetUtil.getResourceString("errNotInThisThread"));
+		}
+	}
+
+	private void fireConnected(InetSocketAddress local, InetSocketAddress remote) {
+		final OSCConnectionListener[] arrConn;
+		synchronized (connListeners) {
+			arrConn = new OSCConnectionListener[connListeners.size()];
+			connListeners.toArray(arrConn);
+		}
+		for (OSCConnectionListener l : arrConn) {
+			l.onConnected(local, remote);
+		}
+	}
+
+	private void fireDisconnected(InetSocketAddress local, InetSocketAddress remote) {
+		final OSCConnectionListener[] arrConn;
+		synchronized (connListeners) {
+			arrConn = new OSCConnectionListener[connListeners.size()];
+			connListeners.toArray(arrConn);
+		}
+		for (OSCConnectionListener l : arrConn) {
+			l.onDisconnected(local, remote);
+		}
+	}
+
+	// called by the first loop
+	private void accept()
+			throws IOException {
+		final Loop[] l = loops;
+		SocketChannel sch;
+		while ((l != null) && ((sch = ssch.accept()) != null)) {
+			sch.configureBlocking(false);
+			final OSCSocketOptions options = getSocketOptions();
+			if (options != null) {
+				try {
+					options.applyTo(sch);
+				} catch (IOException e1) {
+					NetUtil.log(Level.WARNING, "", e1);
+				}
+			}
+			final Connection conn = new Connection(sch, l[nextLoop]);
+			nextLoop = (nextLoop + 1) % l.length;
+			synchronized (connSync) {
+				mapConn.put(conn.remote, conn);
+			}
+			fireConnected(conn.localI, conn.remoteI);
+			conn.loop.update(conn);
+		}
+	}
+
+	private void dispatchPacket(OSCPacket p, SocketAddress sender, long time) {
+		if (p instanceof OSCMessage) {
+			for (OSCListener listener : listeners) {
+				listener.messageReceived((OSCMessage) p, sender, time);
+			}
+		} else if (p instanceof OSCBundle) {
+			final OSCBundle bndl = (OSCBundle) p;
+			time = bndl.getTimeTag();
+			for (int i = 0; i < bndl.getPacketCount(); i++) {
+				dispatchPacket(bndl.getPacket(i), sender, time);
+			}
+		} else {
+			assert false : p.getClass().getName();
+		}
+	}
+
+	// --------------------- internal classes ---------------------
+
+	private final class Loop
+			implements Runnable {
+
+		final Selector					sel;
+		final Thread					thread;
+		private final List<Connection>	pending		= new ArrayList<Connection>();	// to register or to update
+		private final List<Connection>	pendingCopy	= new ArrayList<Connection>();
+		final ByteBuffer[]				gatherBufs	= new ByteBuffer[MAX_GATHER];	// used by flushQueue
+		final ByteBuffer				readBuf		= ByteBuffer.allocateDirect(READ_BUFFER_SIZE);	// used by read
+
+		protected Loop(int idx)
+				throws IOException {
+			sel		= Selector.open();
+			thread	= NetUtil.newThread(getThreadFactory(), this, "TCPServerLoop-" + idx);
+		}
+
+		// registers the connection or updates its interest in writing
+		void update(Connection conn) {
+			synchronized (pending) {
+				pending.add(conn);
+			}
+			sel.wakeup();
+		}
+
+		public void run() {
+			try {
+				while (isListening) {
+					sel.select();
+					if (!isListening) break;
+					processPending();
+
+					final Iterator<SelectionKey> iter = sel.selectedKeys().iterator();
+					while (iter.hasNext()) {
+						final SelectionKey key = iter.next();
+						iter.remove();
+						if (key.attachment() == null) {
+							try {
+								accept();
+							} catch (IOException e1) {
+								if (isListening) NetUtil.log(Level.WARNING, "", e1);
+							}
+						} else {
+							process(key, (Connection) key.attachment());
+						}
+					}
+				}
+			} catch (IOException e1) {	// the selector failed
+				if (isListening) NetUtil.log(Level.SEVERE, "", e1);
+			}
+		}
+
+		private void process(SelectionKey key, Connection conn) {
+			try {
+				if (key.isReadable()) conn.read();
+				if (key.isValid() && key.isWritable()) conn.flushQueue();
+			} catch (CancelledKeyException e1) {
+				conn.close();
+			} catch (IOException e1) {
+				if (isListening) NetUtil.log(Level.WARNING, "", e1);
+				conn.close();
+			} catch (RuntimeException e1) {    // e.g. thrown by a listener; keep serving the other connections
+				NetUtil.log(Level.SEVERE, "", e1);
+			}
+		}
+
+		private void processPending() {
+			synchronized (pending) {
+				pendingCopy.addAll(pending);
+				pending.clear();
+			}
+			for (Connection conn : pendingCopy) {
+				try {
+					if (conn.key == null) conn.key = conn.sch.register(sel, SelectionKey.OP_READ, conn);
+					conn.updateInterest();
+				} catch (ClosedChannelException e1) {
+					conn.close();
+				} catch (CancelledKeyException e1) {
+					conn.close();
+				}
+			}
+			pendingCopy.clear();
+		}
+	}
+
+	private final class Connection
+			implements OSCFrameDecoder.Handler {
+		final SocketChannel				sch;
+		final Loop						loop;
+		final SocketAddress				remote;
+		final InetSocketAddress			localI;
+		final InetSocketAddress			remoteI;
+		volatile OSCPacketCodec			codec;
+		SelectionKey					key			= null;	// loop thread only
+
+		// reading state, loop thread only
+		private final OSCFrameDecoder	decoder;
+
+		// writing state, synchronized by the queue
+		private final LinkedList<ByteBuffer>	queue	= new LinkedList<ByteBuffer>();
+		private int						queuedBytes	= 0;
+		private boolean					closed		= false;
+		private ScheduledFuture<?>		flushTask	= null;	// coalescing mode
+		private final Runnable			flushRunnable	= new Runnable() {
+			public void run() {
+				synchronized (queue) {
+					flushTask = null;
+				}
+				requestFlush();
+			}
+		};
+
+		protected Connection(SocketChannel sch, Loop loop) {
+			this.sch	= sch;
+			this.loop	= loop;
+			final Socket s = sch.socket();
+			remote		= s.getRemoteSocketAddress();
+			remoteI		= (remote instanceof InetSocketAddress) ? (InetSocketAddress) remote : null;
+			localI		= new InetSocketAddress(s.getLocalAddress(), s.getLocalPort());
+			codec		= defaultCodec;
+			decoder		= OSCFrameDecoder.newUsing(getProtocol(), bufSize);
+		}
+
+		// one read may contain many packets, or parts of them
+		void read()
+				throws IOException {
+			final ByteBuffer b = loop.readBuf;
+			b.clear();
+			if (sch.read(b) < 0) {
+				close();
+				return;
+			}
+			b.flip();
+			decoder.setMaxSize(bufSize);
+			decoder.decode(b, this);	// the stream cannot be resynchronized after an invalid size
+		}
+
+		public void frameDecoded(ByteBuffer b) {
+			decodeDispatch(b);
+		}
+
+		private void decodeDispatch(ByteBuffer b) {
+			try {
+				final OSCPacket p = codec.decode(b);
+				final int mode = inMode;
+				if (mode != kDumpOff) {
+					final PrintStream stream = inStream;
+					stream.print("r: ");
+					if ((mode & kDumpText) != 0) OSCPacket.printTextOn(stream, p);
+					if ((mode & kDumpHex) != 0) {
+						b.flip();
+						OSCPacket.printHexOn(stream, b);
+					}
+				}
+				dispatchPacket(p, remote, OSCBundle.NOW);	// OSCBundles will override this dummy time tag
+
+			} catch (IOException e1) {	// the packet is malformed, but the stream is intact
+				NetUtil.log(Level.WARNING, "", e1);
+			} catch (BufferUnderflowException e1) {
+				NetUtil.log(Level.WARNING, "", e1);
+			}
+		}
+
+		void send(OSCPacket p)
+				throws IOException {
+			final OSCPacketCodec	c		= codec;
+			final OSCBufferPool		pool	= OSCBufferPool.getDefaultPool();
+			final int				len		= c.getSize(p);
+			if (len > bufSize) throw new OSCException(OSCException.BUFFER,
+				p instanceof OSCMessage ? ((OSCMessage) p).getName() : p.getClass().getName());
+
+			final ByteBuffer b = pool.acquire(len + 4);
+			try {
+				b.limit(len + 4);
+				if (slip) {    // the codec pads relative to the buffer, so the packet begins at four
+					b.put(3, OSCSlip.END);
+					b.position(4);
+				} else {
+					b.putInt(len);
+				}
+				c.encode(p, b);
+				b.flip();
+				if (slip) b.position(3);
+			} catch (BufferOverflowException e1) {	// getSize and encode disagree
+				pool.release(b);
+				throw new OSCException(OSCException.BUFFER,
+					p instanceof OSCMessage ? ((OSCMessage) p).getName() : p.getClass().getName());
+			}
+
+			dumpOutgoing(p, b);
+			enqueue(slip ? OSCSlip.escapeFrame(b, len) : b);
+		}
+
+		// the buffer is returned to the pool when written, unless it is read-only
+		void enqueue(ByteBuffer b)
+				throws IOException {
+			final boolean overflow;
+			synchronized (queue) {
+				if (closed) {
+					recycle(b);
+					throw new ClosedChannelException();
+				}
+				final boolean collect = coalescing;
+				if (queue.isEmpty() && !collect) {
+					try {
+						sch.write(b);
+					} catch (IOException e1) {
+						recycle(b);
+						throw e1;
+					}
+					if (!b.hasRemaining()) {
+						recycle(b);
+						return;
+					}
+					queue.add(b);
+					queuedBytes = b.remaining();
+					loop.update(this);    // wait for the channel to become writable
+					return;
+				}
+				overflow = (long) queuedBytes + b.remaining() > (long) bufSize * MAX_QUEUED_PACKETS;
+				if (!overflow) {
+					final boolean first = queue.isEmpty();
+					queue.add(b);
+					queuedBytes += b.remaining();
+					if (collect) {
+						final int size = bufSize;
+						if ((queuedBytes >= size) && (queuedBytes - b.remaining() < size)) {
+							loop.update(this);	// the buffer is full
+						} else if (first && (flushTask == null)) {
+							final int delay = maxDelay;
+							if (delay > 0) flushTask = OSCTransmitter.scheduleFlush(flushRunnable, delay);
+						}
+					}
+				}
+			}
+			if (overflow) {    // the client does not read; the stream cannot be continued without this packet
+				recycle(b);
+				close();
+				throw new OSCException(OSCException.BUFFER, String.valueOf(remote));
+			}
+		}
+
+		// called by the loop when the channel is writable. All queued
+		// packets are written with one gathering write
+		void flushQueue()
+				throws IOException {
+			synchronized (queue) {
+				final ByteBuffer[] gatherBufs = loop.gatherBufs;
+				while (!queue.isEmpty()) {
+					final int num = Math.min(queue.size(), gatherBufs.length);
+					final Iterator<ByteBuffer> iter = queue.iterator();
+					for (int i = 0; i < num; i++) {
+						gatherBufs[i] = iter.next();
+					}
+					try {
+						queuedBytes -= (int) sch.write(gatherBufs, 0, num);
+					} finally {
+						for (int i = 0; i < num; i++) {
+							gatherBufs[i] = null;
+						}
+					}
+					int numWritten = 0;
+					while (!queue.isEmpty() && !queue.getFirst().hasRemaining()) {
+						recycle(queue.removeFirst());
+						numWritten++;
+					}
+					if (numWritten < num) return;    // wait until the channel is writable again
+				}
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		}
+
+		// asks the loop to write the queued packets
+		void requestFlush() {
+			synchronized (queue) {
+				if (closed || queue.isEmpty()) return;
+			}
+			loop.update(this);
+		}
+
+		// called by the loop
+		void updateInterest() {
+			synchronized (queue) {
+				if (closed) return;
+				key.interestOps(queue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		}
+
+		void close() {
+			synchronized (queue) {
+				if (closed) return;
+				closed = true;
+				for (ByteBuffer b : queue) {
+					recycle(b);
+				}
+				queue.clear();
+				queuedBytes = 0;
+				if (flushTask != null) {
+					flushTask.cancel(false);
+					flushTask = null;
+				}
+			}
+			if (key != null) key.cancel();
+			try {
+				sch.close();
+			} catch (IOException e1) {
+				NetUtil.log(Level.WARNING, "", e1);
+			}
+			if ((Thread.currentThread() == loop.thread) || !loop.thread.isAlive()) {    // otherwise the loop might still read into it
+				decoder.reset();
+			}
+			synchronized (connSync) {
+				if (mapConn.get(remote) == this) mapConn.remove(remote);
+			}
+			fireDisconnected(localI, remoteI);
+		}
+	}
+}
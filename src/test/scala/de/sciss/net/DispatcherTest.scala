@@ -0,0 +1,81 @@
+package de.sciss.net
+
+import java.net.SocketAddress
+
+// checks the OSC 1.0 pattern matching of OSCDispatcher and dispatching by pattern
+object DispatcherTest extends App {
+  import OSCDispatcher.matches
+
+  def yes(p: String, names: String*): Unit = names.foreach(n => assert( matches(p, n), s"'$p' should match '$n'"))
+  def no (p: String, names: String*): Unit = names.foreach(n => assert(!matches(p, n), s"'$p' should not match '$n'"))
+
+  yes("freq"    , "freq")
+  no ("freq"    , "fre", "freqs", "")
+
+  yes("*"       , "", "a", "freq")
+  yes("f*q"     , "fq", "freq", "fqq")
+  no ("f*q"     , "f", "freqs")
+  yes("**a"     , "a", "bca")
+  no ("*a"      , "ab")
+
+  yes("?"       , "a", "?")
+  no ("?"       , "", "ab")
+  yes("f??q"    , "freq")
+
+  yes("[a-z]"   , "a", "m", "z")
+  no ("[a-z]"   , "A", "0", "", "ab")
+  yes("[!a-z]"  , "A", "0", "-")
+  no ("[!a-z]"  , "a", "z", "")
+  yes("[z-a]"   , "m")
+  yes("[abc]"   , "b")
+  yes("[a-]"    , "a", "-")
+  no ("[a-]"    , "b")
+  yes("n[0-9]x" , "n5x")
+  no ("[a"      , "a")
+
+  yes("{a,b}"   , "a", "b")
+  no ("{a,b}"   , "c", "ab", "")
+  yes("{foo,ba}r", "foor", "bar")
+  yes("{,x}y"   , "y", "xy")
+  yes("{ab,a}b" , "ab", "abb")
+  no ("{a"      , "a")
+
+  yes("*{1,2}[!0]?", "chan1ab", "2xy")
+  no ("*{1,2}[!0]?", "chan10a", "chan3ab")
+
+  // patterns in the address select the methods, per segment
+  var hits = List.empty[String]
+  def handler(name: String): OSCListener = new OSCListener {
+    def messageReceived(m: OSCMessage, sender: SocketAddress, time: Long): Unit = hits :+= name
+  }
+  val d     = new OSCDispatcher
+  val hA    = handler("/s/a")
+  d.addHandler("/s/a"       , hA)
+  d.addHandler("/s/b"       , handler("/s/b"))
+  d.addHandler("/s/b/c"     , handler("/s/b/c"))
+  d.addHandler("/t/a"       , handler("/t/a"))
+
+  def dispatch(address: String): List[String] = {
+    hits = Nil
+    d.dispatch(new OSCMessage(address), null, OSCBundle.NOW)
+    hits.sorted
+  }
+
+  assert(dispatch("/s/a"    ) == List("/s/a"))
+  assert(dispatch("/s/*"    ) == List("/s/a", "/s/b"))
+  assert(dispatch("/*/a"    ) == List("/s/a", "/t/a"))
+  assert(dispatch("/s/{a,b}") == List("/s/a", "/s/b"))
+  assert(dispatch("/s/[!a]" ) == List("/s/b"))
+  assert(dispatch("/s/?/c"  ) == List("/s/b/c"))
+  assert(dispatch("/x/*"    ) == Nil)
+
+  // removing null or an unknown handler has no effect
+  d.removeHandler("/s/a", null)
+  d.removeHandler("/s/a", handler("/s/a"))
+  assert(d.getMethodCount == 4)
+  d.removeHandler("/s/a", hA)
+  assert(d.getMethodCount == 3)
+  assert(dispatch("/s/*") == List("/s/b"))
+
+  println("DispatcherTest passed.")
+}
@@ -0,0 +1,69 @@
+package de.sciss.net
+
+import java.nio.ByteBuffer
+
+import scala.util.Random
+
+// checks the size prefixed frame decoder with arbitrary chunking and oversized packets
+object FrameDecoderTest extends App {
+  def decode(chunks: Seq[Array[Byte]], maxSize: Int = 1024): List[List[Byte]] = {
+    val dec = OSCFrameDecoder.newUsing(OSCChannel.TCP, maxSize)
+    var res = List.empty[List[Byte]]
+    val h   = new OSCFrameDecoder.Handler {
+      def frameDecoded(b: ByteBuffer): Unit = {
+        val arr = new Array[Byte](b.remaining())
+        b.get(arr)
+        res :+= arr.toList
+      }
+    }
+    chunks.foreach(c => dec.decode(ByteBuffer.wrap(c), h))
+    dec.reset()
+    res
+  }
+
+  def frame(p: Array[Byte]): Array[Byte] = {
+    val b = ByteBuffer.allocate(4 + p.length)
+    b.putInt(p.length).put(p)
+    b.array()
+  }
+
+  val rnd     = new Random(0L)
+  val packets = Seq.fill(20)(Array.fill(rnd.nextInt(40) + 1)(rnd.nextInt(256).toByte))
+  val stream  = packets.flatMap(frame).toArray
+  val expect  = packets.map(_.toList).toList
+
+  assert(decode(Seq(stream)) == expect)
+  for (i <- 0 to stream.length) {
+    val res = decode(Seq(stream.take(i), stream.drop(i)))
+    assert(res == expect, s"split at $i")
+  }
+  for (_ <- 0 until 200) {
+    var rest    = stream
+    var chunks  = Vector.empty[Array[Byte]]
+    while (rest.nonEmpty) {
+      val n = rnd.nextInt(8) + 1
+      chunks :+= rest.take(n)
+      rest = rest.drop(n)
+    }
+    assert(decode(chunks) == expect)
+  }
+
+  // an oversized packet is skipped, also when split, and the following one is kept
+  val small   = Array[Byte](1, 2, 3, 4)
+  val skipped = frame(Array.fill[Byte](100)(7)) ++ frame(small)
+  for (i <- 0 to skipped.length) {
+    val res = decode(Seq(skipped.take(i), skipped.drop(i)), maxSize = 16)
+    assert(res == List(small.toList), s"oversized, split at $i: $res")
+  }
+
+  // a negative size cannot be recovered from
+  val negative = try {
+    decode(Seq(Array[Byte](-1, -1, -1, -1)))
+    false
+  } catch {
+    case e: OSCException => e.getCauseType == OSCException.RECEIVE
+  }
+  assert(negative)
+
+  println("FrameDecoderTest passed.")
+}
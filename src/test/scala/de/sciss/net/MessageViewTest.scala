@@ -0,0 +1,59 @@
+package de.sciss.net
+
+import java.nio.{ByteBuffer, CharBuffer}
+
+// reads a message through OSCMessageView, and checks that malformed arguments are rejected
+// instead of reading past the end of the message
+object MessageViewTest extends App {
+  val c    = new OSCPacketCodec(OSCPacketCodec.MODE_FAT_V1)  // writes longs and doubles
+  val blob = Array[Byte](1, 2, 3, 4, 5)
+  val msg  = new OSCMessage("/test", Array[AnyRef](Integer.valueOf(-7), java.lang.Float.valueOf(1.5f),
+    java.lang.Long.valueOf(1L << 40), java.lang.Double.valueOf(2.25), "hello", blob, "x"))
+  val b    = ByteBuffer.allocate(256)
+  c.encode(msg, b)
+  b.flip()
+
+  val v = new OSCMessageView(c).wrap(b)
+  assert(v.addressEquals("/test") && v.getAddress == "/test")
+  assert(v.getArgCount == 7)
+  assert(v.getInt(0) == -7)
+  assert(v.getFloat(1) == 1.5f)
+  assert(v.getLong(2) == (1L << 40))
+  assert(v.getDouble(3) == 2.25)
+  assert(v.getString(4) == "hello")
+  val cb = CharBuffer.allocate(16)
+  assert(v.getStringInto(6, cb) == 1 && cb.get(0) == 'x')
+  val vb = v.getBlob(5)
+  assert(vb.remaining() == blob.length && (0 until blob.length).forall(i => vb.get(vb.position() + i) == blob(i)))
+  assert(v.getArg(4) == "hello")
+
+  def assertFormat(name: String)(body: => Any): Unit =
+    try {
+      body
+      assert(assertion = false, s"$name: not rejected")
+    } catch {
+      case _: OSCException => ()
+    }
+
+  // wraps a message of the given type tag and argument bytes, followed by bytes beyond its limit
+  def malformed(tag: Char, args: Array[Byte]): OSCMessageView = {
+    val m = ByteBuffer.allocate(64)
+    m.put("/a".getBytes("US-ASCII")).putShort(0)
+    m.put(',').put(tag.toByte).putShort(0)
+    m.put(args)
+    val lim = m.position()
+    m.putInt(0).put("tail".getBytes("US-ASCII")).putInt(0)  // must not be read
+    m.limit(lim).position(0)
+    new OSCMessageView(c).wrap(m)
+  }
+
+  assertFormat("unterminated string")     (malformed('s', "abcd".getBytes("US-ASCII")).getString(0))
+  assertFormat("unterminated string into")(malformed('s', "abcd".getBytes("US-ASCII")).getStringInto(0, CharBuffer.allocate(16)))
+  assertFormat("negative blob size")      (malformed('b', Array[Byte](-1, -1, -1, -4, 1, 2, 3, 4)).getBlob(0))
+  assertFormat("blob past the limit")     (malformed('b', Array[Byte](0, 0, 0, 100, 1, 2, 3, 4)).getBlob(0))
+  assertFormat("blob without size")       (malformed('b', Array[Byte](0, 0)).getBlob(0))
+  assertFormat("truncated int")           (malformed('i', Array[Byte](0, 0)).getInt(0))
+  assertFormat("truncated double")        (malformed('d', Array[Byte](0, 0, 0, 0)).getDouble(0))
+
+  println("MessageViewTest passed.")
+}
@@ -0,0 +1,48 @@
+package de.sciss.net
+
+import java.nio.ByteBuffer
+import java.util.Arrays
+
+// writes messages of varying shape with one OSCMessageWriter, so that the type tags
+// have to be moved, and compares them with the codec's encoding and decoding
+object MessageWriterTest extends App {
+  val c = new OSCPacketCodec(OSCPacketCodec.MODE_FAT_V1)  // reads longs and doubles
+  val w = new OSCMessageWriter(c)
+  val b = ByteBuffer.allocate(512)
+
+  for (n <- Seq(0, 1, 3, 6, 7, 12, 12, 2)) {
+    b.clear()
+    w.wrap(b).address("/w")
+    val expected = Array.tabulate[AnyRef](n) { i =>
+      i % 6 match {
+        case 0 => w.addInt(i);                        Integer.valueOf(i)
+        case 1 => w.addFloat(i + 0.5f);               java.lang.Float.valueOf(i + 0.5f)
+        case 2 => w.addLong(1L << (32 + i));          java.lang.Long.valueOf(1L << (32 + i))
+        case 3 => w.addDouble(i * 0.25);              java.lang.Double.valueOf(i * 0.25)
+        case 4 => w.addString(s"s$i");                s"s$i"
+        case _ => w.addBlob(Array[Byte](i.toByte, 2, 3)); Array[Byte](i.toByte, 2, 3)
+      }
+    }
+    val end = w.finish()
+    assert(end == b.position())
+    b.flip()
+    assert(b.limit() == c.getSize(new OSCMessage("/w", expected)), s"size of $n arguments")
+
+    val m = c.decode(b).asInstanceOf[OSCMessage]
+    assert(m.getName == "/w" && m.getArgCount == n)
+    for (i <- 0 until n) {
+      val same = (m.getArg(i), expected(i)) match {
+        case (x: Array[Byte], y: Array[Byte]) => Arrays.equals(x, y)
+        case (x, y) => x == y
+      }
+      assert(same, s"argument $i of $n: ${m.getArg(i)}")
+    }
+
+    b.rewind()
+    val v = new OSCMessageView(c).wrap(b)
+    assert(v.getArgCount == n)
+    if (n > 4) assert(v.getString(4) == "s4" && v.getLong(2) == (1L << 34))
+  }
+
+  println("MessageWriterTest passed.")
+}
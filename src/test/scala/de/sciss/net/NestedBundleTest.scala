@@ -0,0 +1,46 @@
+package de.sciss.net
+
+import java.nio.ByteBuffer
+
+// encodes a bundle with a nested bundle followed by a message and checks the size fields and the round trip
+object NestedBundleTest extends App {
+  val c     = OSCPacketCodec.getDefaultCodec
+  val inner = new OSCBundle(1000L)
+  inner.addPacket(new OSCMessage("/inner", Array[AnyRef](Integer.valueOf(1), "a")))
+  inner.addPacket(new OSCMessage("/inner2", Array[AnyRef]()))
+  val outer = new OSCBundle(2000L)
+  outer.addPacket(new OSCMessage("/first", Array[AnyRef](java.lang.Float.valueOf(1.5f))))
+  outer.addPacket(inner)
+  outer.addPacket(new OSCMessage("/last", Array[AnyRef](Integer.valueOf(3))))
+
+  val b = ByteBuffer.allocate(1024)
+  c.encode(outer, b)
+  assert(b.position() == c.getSize(outer), s"size ${b.position()} != ${c.getSize(outer)}")
+  b.flip()
+
+  // the element sizes of the outer bundle must add up to the packet
+  var pos   = 16
+  var sizes = List.empty[Int]
+  while (pos < b.limit()) {
+    val size = b.getInt(pos)
+    sizes :+= size
+    pos += 4 + size
+  }
+  assert(pos == b.limit(), s"element sizes end at $pos, packet ends at ${b.limit()}")
+  assert(sizes == List(c.getSize(outer.getPacket(0)), c.getSize(inner), c.getSize(outer.getPacket(2))), sizes.toString)
+
+  val d = c.decode(b).asInstanceOf[OSCBundle]
+  assert(d.getTimeTag == outer.getTimeTag)
+  assert(d.getPacketCount == 3)
+  assert(d.getPacket(0).asInstanceOf[OSCMessage].getName == "/first")
+  val di = d.getPacket(1).asInstanceOf[OSCBundle]
+  assert(di.getTimeTag == inner.getTimeTag)
+  assert(di.getPacketCount == 2)
+  val m = di.getPacket(0).asInstanceOf[OSCMessage]
+  assert(m.getName == "/inner" && m.getArg(0) == Integer.valueOf(1) && m.getArg(1) == "a")
+  assert(di.getPacket(1).asInstanceOf[OSCMessage].getName == "/inner2")
+  val last = d.getPacket(2).asInstanceOf[OSCMessage]
+  assert(last.getName == "/last" && last.getArg(0) == Integer.valueOf(3))
+
+  println("NestedBundleTest passed.")
+}
@@ -0,0 +1,69 @@
+package de.sciss.net
+
+import java.net.{InetSocketAddress, SocketAddress}
+import java.nio.ByteBuffer
+
+// checks that a scheduling receiver dispatches bundles in the order of their time tags,
+// limits the number of bundles held back, and copies blobs held back with the bundle
+object SchedulerTest extends App {
+  val codec = new OSCPacketCodec(OSCPacketCodec.MODE_READ_BLOB_AS_BUFFER)
+  val r     = OSCReceiver.newUsing(codec, OSCChannel.UDP, new InetSocketAddress("127.0.0.1", 0))
+  r.setScheduling(true, 0, 4)
+
+  var names = Vector.empty[String]
+  var blob  = Option.empty[ByteBuffer]
+  r.addOSCListener(new OSCListener {
+    def messageReceived(m: OSCMessage, sender: SocketAddress, time: Long): Unit = r.synchronized {
+      names :+= m.getName
+      if (m.getName == "/blob") blob = Some(m.getArg(0).asInstanceOf[ByteBuffer])
+    }
+  })
+  r.startListening()
+
+  val t       = OSCTransmitter.newUsing(OSCChannel.UDP)
+  t.connect()
+  val target  = new InetSocketAddress("127.0.0.1", r.getLocalAddress.getPort)
+
+  def send(delay: Long, name: String, args: AnyRef*): Unit = {
+    val b = if (delay == 0L) new OSCBundle() else new OSCBundle(base + delay)
+    b.addPacket(new OSCMessage(name, args.toArray))
+    t.send(b, target)
+    Thread.sleep(10)  // keep the datagrams in order
+  }
+
+  def awaitNames(n: Int): Vector[String] = {
+    val deadline = System.currentTimeMillis() + 5000
+    while (r.synchronized(names.size) < n && System.currentTimeMillis() < deadline) Thread.sleep(10)
+    r.synchronized(names)
+  }
+
+  val base = System.currentTimeMillis() + 500
+  send(300, "/c")
+  send(100, "/a1")
+  send(200, "/blob", Array.fill[Byte](16)(7))
+  send(100, "/a2")                          // same time tag: after /a1
+  send(400, "/overflow")                    // the depth of four is reached
+  send(-1000 - 500, "/late")
+  send(0, "/now")
+
+  // the overflowing, late and immediate bundles are dispatched when they arrive
+  val early = awaitNames(3)
+  assert(early == Vector("/overflow", "/late", "/now"), early.toString)
+  assert(r.getScheduleDepth == 4)
+  assert(r.getScheduleOverflowCount == 1L)
+  assert(r.getScheduleLateCount == 1L)
+
+  // the following datagrams overwrite the blob's bytes in the receive buffer
+  for (_ <- 0 until 4) send(0, "/fill", new Array[Byte](16))
+
+  val all = awaitNames(11).filterNot(_ == "/fill")
+  assert(all == Vector("/overflow", "/late", "/now", "/a1", "/a2", "/blob", "/c"), all.toString)
+  assert(r.getScheduleDepth == 0)
+  assert(r.getScheduleMaxDepth == 4)
+  val b = blob.get
+  assert(b.remaining() == 16 && (0 until 16).forall(i => b.get(b.position() + i) == 7), "blob was not copied")
+
+  t.dispose()
+  r.dispose()
+  println("SchedulerTest passed.")
+}
@@ -0,0 +1,121 @@
+package de.sciss.net
+
+import java.net.{InetSocketAddress, Socket, SocketAddress}
+
+// checks the selector-based TCP server: accepting clients, in-order delivery in both
+// directions with partial writes, sendAll fan-out, dropping a client which stops reading,
+// coalescing, and disconnecting, for size prefixed and SLIP framing
+object SelectorServerTest extends App {
+  final class Client(protocol: String, target: SocketAddress) {
+    val c     = OSCClient.newUsing(protocol)
+    var got   = Map.empty[String, Vector[Int]]
+    c.setBufferSize(32768)
+    c.setTarget(target)
+    c.addOSCListener(new OSCListener {
+      def messageReceived(m: OSCMessage, sender: SocketAddress, time: Long): Unit = Client.this.synchronized {
+        val i = m.getArg(0).asInstanceOf[Number].intValue
+        got += m.getName -> (got.getOrElse(m.getName, Vector.empty) :+ i)
+      }
+    })
+    c.start()
+
+    def apply(name: String): Vector[Int] = synchronized(got.getOrElse(name, Vector.empty))
+  }
+
+  def await(cond: => Boolean, timeout: Long = 10000): Boolean = {
+    val deadline = System.currentTimeMillis() + timeout
+    while (!cond && System.currentTimeMillis() < deadline) Thread.sleep(10)
+    cond
+  }
+
+  def awaitAll(clients: Seq[Client], name: String, n: Int): Unit =
+    for (c <- clients) {
+      await(c(name).size >= n, 20000)
+      assert(c(name) == (0 until n), s"$name: ${c(name).size} of $n")
+    }
+
+  for (protocol <- Seq(OSCChannel.TCP, OSCChannel.TCP_SLIP)) {
+    val srv = OSCServer.newUsing(OSCPacketCodec.getDefaultCodec, protocol, new InetSocketAddress("127.0.0.1", 0), 2)
+    srv.setBufferSize(32768)
+    var conns = 0
+    var discs = 0
+    srv.addConnectionListener(new OSCConnectionListener {
+      def onConnected   (local: InetSocketAddress, remote: InetSocketAddress): Unit = srv.synchronized(conns += 1)
+      def onDisconnected(local: InetSocketAddress, remote: InetSocketAddress): Unit = srv.synchronized(discs += 1)
+    })
+    def numConns: Int = srv.synchronized(conns)
+    def numDiscs: Int = srv.synchronized(discs)
+
+    // each request is answered with a reply too large to be written at once
+    var next        = Map.empty[SocketAddress, Int]
+    var outOfOrder  = 0
+    srv.addOSCListener(new OSCListener {
+      def messageReceived(m: OSCMessage, sender: SocketAddress, time: Long): Unit = {
+        val i = m.getArg(0).asInstanceOf[Number].intValue
+        next.synchronized {
+          if (i != next.getOrElse(sender, 0)) outOfOrder += 1
+          next += sender -> (i + 1)
+        }
+        srv.send(new OSCMessage("/reply", Array[AnyRef](Integer.valueOf(i), new Array[Byte](20000))), sender)
+      }
+    })
+    srv.start()
+
+    val numClients  = 10
+    val clients     = Seq.fill(numClients)(new Client(protocol, srv.getLocalAddress))
+    assert(await(numConns == numClients), s"$protocol: $numConns connections")
+
+    for (i <- 0 until 200; c <- clients) c.c.send(new OSCMessage("/n", Array[AnyRef](Integer.valueOf(i))))
+    awaitAll(clients, "/reply", 200)
+    assert(next.synchronized(outOfOrder) == 0, s"$protocol: requests out of order")
+
+    // a client which does not read is dropped when its queue overflows; the others get everything
+    val stalled = new Socket()
+    stalled.setReceiveBufferSize(4096)
+    stalled.connect(srv.getLocalAddress)
+    assert(await(numConns == numClients + 1))
+    var overflows = 0
+    for (k <- 0 until 1000) {
+      try {
+        srv.sendAll(new OSCMessage("/state", Array[AnyRef](Integer.valueOf(k), new Array[Byte](16000))))
+      } catch {
+        case _: OSCException => overflows += 1
+      }
+    }
+    awaitAll(clients, "/state", 1000)
+    assert(await(numDiscs == 1) && overflows == 1, s"$protocol: $numDiscs disconnects, $overflows overflows")
+
+    // coalescing holds the packets back until flushed or the delay has passed
+    srv.setCoalescing(true, 0)
+    for (i <- 0 until 10) srv.sendAll(new OSCMessage("/c", Array[AnyRef](Integer.valueOf(i))))
+    Thread.sleep(200)
+    assert(clients.forall(_("/c").isEmpty), s"$protocol: sent before flush")
+    srv.flush()
+    awaitAll(clients, "/c", 10)
+    srv.setCoalescing(true, 50)
+    srv.sendAll(new OSCMessage("/d", Array[AnyRef](Integer.valueOf(0))))
+    awaitAll(clients, "/d", 1)
+    srv.setCoalescing(false, 0)
+
+    // a client leaving is noticed, and it can no longer be addressed
+    val gone = clients.head.c.getLocalAddress
+    clients.head.c.dispose()
+    assert(await(numDiscs == 2))
+    val rejected = try {
+      srv.send(new OSCMessage("/x", Array[AnyRef](Integer.valueOf(0))), gone)
+      false
+    } catch {
+      case _: IllegalStateException => true
+    }
+    assert(rejected)
+
+    srv.stop()
+    assert(await(numDiscs == numClients + 1), s"$protocol: $numDiscs disconnects after stop")
+
+    clients.foreach(_.c.dispose())
+    stalled.close()
+    srv.dispose()
+  }
+
+  println("SelectorServerTest passed.")
+}
@@ -0,0 +1,102 @@
+package de.sciss.net
+
+import java.nio.{ByteBuffer, ByteOrder}
+
+import scala.util.Random
+
+// checks the SLIP frame decoder against malformed escapes and arbitrary chunking,
+// and the word-wise scanning and escaping of OSCSlip against a byte-wise reference
+object SlipTest extends App {
+  val END     = OSCSlip.END
+  val ESC     = OSCSlip.ESC
+  val ESC_END = OSCSlip.ESC_END
+  val ESC_ESC = OSCSlip.ESC_ESC
+
+  def decode(chunks: Seq[Array[Byte]], maxSize: Int = 1024): List[List[Byte]] = {
+    val dec = OSCFrameDecoder.newUsing(OSCChannel.TCP_SLIP, maxSize)
+    var res = List.empty[List[Byte]]
+    val h   = new OSCFrameDecoder.Handler {
+      def frameDecoded(b: ByteBuffer): Unit = {
+        val arr = new Array[Byte](b.remaining())
+        b.get(arr)
+        res :+= arr.toList
+      }
+    }
+    chunks.foreach(c => dec.decode(ByteBuffer.wrap(c), h))
+    dec.reset()
+    res
+  }
+
+  def reference(packet: Array[Byte]): Array[Byte] =
+    packet.flatMap {
+      case END  => Array(ESC, ESC_END)
+      case ESC  => Array(ESC, ESC_ESC)
+      case v    => Array(v)
+    }
+
+  // a malformed escape drops its packet, and only its packet
+  val A = 'A'.toByte; val B = 'B'.toByte; val C = 'C'.toByte; val X = 'X'.toByte; val Y = 'Y'.toByte
+  val bad = Array[Byte](A, B, ESC, 0x01, C, END, X, Y, END)
+  assert(decode(Seq(bad)) == List(List(X, Y)), decode(Seq(bad)).toString)
+  for (i <- 1 until bad.length) {
+    val res = decode(Seq(bad.take(i), bad.drop(i)))
+    assert(res == List(List(X, Y)), s"split at $i: $res")
+  }
+
+  // escapes and ENDs split across chunks at every position
+  val rnd     = new Random(0L)
+  val packets = Seq.fill(20) {
+    Array.fill(rnd.nextInt(40) + 1)(rnd.nextInt(6) match {
+      case 0 => END
+      case 1 => ESC
+      case _ => rnd.nextInt(256).toByte
+    })
+  }
+  val stream  = packets.flatMap(p => END +: reference(p) :+ END).toArray
+  val expect  = packets.map(_.toList).toList
+  for (i <- 0 to stream.length) {
+    val res = decode(Seq(stream.take(i), stream.drop(i)))
+    assert(res == expect, s"split at $i")
+  }
+  for (_ <- 0 until 200) {
+    var rest    = stream
+    var chunks  = Vector.empty[Array[Byte]]
+    while (rest.nonEmpty) {
+      val n = rnd.nextInt(8) + 1
+      chunks :+= rest.take(n)
+      rest = rest.drop(n)
+    }
+    assert(decode(chunks) == expect)
+  }
+
+  // an oversized packet is skipped, the following one is kept
+  val big = decode(Seq(Array.fill[Byte](20)(1) :+ END, Array[Byte](ESC, ESC_END, 2, END)), maxSize = 16)
+  assert(big == List(List(END, 2.toByte)), big.toString)
+
+  // word-wise scanning and escaping, in both byte orders and at all alignments
+  for (order <- Seq(ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN); p <- packets; off <- 0 until 8) {
+    val len = p.length
+    val b   = ByteBuffer.allocate(off + 2 * len + 8).order(order)
+    b.position(off)
+    b.put(p)
+    val lim = off + len
+    val idx = OSCSlip.indexOfSpecial(b, off, lim)
+    val exp = p.indexWhere(v => v == END || v == ESC)
+    assert(idx == (if (exp < 0) lim else off + exp), s"indexOfSpecial $idx")
+    val n   = OSCSlip.countSpecial(b, off, lim)
+    assert(n == p.count(v => v == END || v == ESC), s"countSpecial $n")
+
+    val ref = reference(p)
+    OSCSlip.escapeInPlace(b, off, len, n)
+    val inPlace = new Array[Byte](len + n)
+    b.position(off)
+    b.get(inPlace)
+    assert(inPlace.sameElements(ref), "escapeInPlace")
+
+    val dst = ByteBuffer.allocate(len + n)
+    OSCSlip.escape(ByteBuffer.wrap(p).order(order), dst)
+    assert(dst.array().sameElements(ref), "escape")
+  }
+
+  println("SlipTest passed.")
+}
@@ -0,0 +1,88 @@
+package de.sciss.net
+
+import java.net.{InetSocketAddress, SocketAddress}
+import java.util.Arrays.asList
+
+// checks the batch and coalescing paths of the TCP transmitters, including
+// a batch which fails partway through, for size prefixed and SLIP framing
+object TransmitterTest extends App {
+  for (protocol <- Seq(OSCChannel.TCP, OSCChannel.TCP_SLIP)) {
+    val srv     = OSCServer.newUsing(protocol, 0, true)
+    var names   = Vector.empty[String]
+    srv.addOSCListener(new OSCListener {
+      def messageReceived(m: OSCMessage, sender: SocketAddress, time: Long): Unit = srv.synchronized {
+        names :+= (if (m.getName == "/n") s"/n${m.getArg(0)}" else m.getName)
+      }
+    })
+    srv.start()
+
+    val t       = OSCTransmitter.newUsing(protocol)
+    val target  = new InetSocketAddress("127.0.0.1", srv.getLocalAddress.getPort)
+    t.setTarget(target)
+    t.connect()
+
+    def received(n: Int, timeout: Long = 5000): Vector[String] = {
+      val deadline = System.currentTimeMillis() + timeout
+      while (srv.synchronized(names.size) < n && System.currentTimeMillis() < deadline) Thread.sleep(10)
+      srv.synchronized {
+        val res = names
+        names = Vector.empty
+        res
+      }
+    }
+
+    def msg(name: String, args: AnyRef*) = new OSCMessage(name, args.toArray)
+
+    // a packet which cannot be encoded fails the batch; the packets before it are sent,
+    // and neither the following packets nor the stream are corrupted
+    val failed = try {
+      t.send(asList(msg("/first"), msg("/bad", new Object)), target)
+      false
+    } catch {
+      case _: OSCException => true
+    }
+    assert(failed)
+    t.send(msg("/second"), target)
+    t.send(asList(msg("/third")), target)
+    t.send(java.nio.ByteBuffer.wrap(Array[Byte]('/', 'r', 'a', 'w', 0, 0, 0, 0, ',', 0, 0, 0)), target)
+    val afterFail = received(4)
+    assert(afterFail == Vector("/first", "/second", "/third", "/raw"), s"$protocol: $afterFail")
+
+    // a large batch arrives complete and in order
+    val batch = (0 until 3000).map(i => msg("/n", Integer.valueOf(i)))
+    t.send(asList(batch: _*), target)
+    val all = received(3000)
+    assert(all == (0 until 3000).map(i => s"/n$i"), s"$protocol: ${all.size} packets")
+
+    // coalescing holds packets back until flushed
+    t.setCoalescing(true, 0)
+    for (i <- 0 until 10) t.send(msg("/n", Integer.valueOf(i)), target)
+    assert(received(1, timeout = 200).isEmpty, s"$protocol: sent before flush")
+    t.flush()
+    assert(received(10) == (0 until 10).map(i => s"/n$i"))
+
+    // ... or until the maximum delay has passed
+    t.setCoalescing(true, 50)
+    t.send(msg("/delayed"), target)
+    t.send(asList(msg("/n", Integer.valueOf(0)), msg("/n", Integer.valueOf(1))), target)
+    assert(received(3) == Vector("/delayed", "/n0", "/n1"))
+
+    // a failing batch keeps the packets collected before it
+    val failedCoalescing = try {
+      t.send(asList(msg("/before"), msg("/bad", new Object)), target)
+      false
+    } catch {
+      case _: OSCException => true
+    }
+    assert(failedCoalescing)
+    t.setCoalescing(false, 0)
+    t.send(msg("/after"), target)
+    val afterFailCoalescing = received(2)
+    assert(afterFailCoalescing == Vector("/before", "/after"), s"$protocol: $afterFailCoalescing")
+
+    t.dispose()
+    srv.dispose()
+  }
+
+  println("TransmitterTest passed.")
+}